@@ -1,30 +1,66 @@
 package com.vedant.querybot.controller;
 
-import com.vedant.querybot.dto.UploadResponseDTO;
-import com.vedant.querybot.entity.UploadedTableMetadata;
-import com.vedant.querybot.service.FileService;
+import com.vedant.querybot.dto.UploadJobDTO;
+import com.vedant.querybot.service.UploadJob;
+import com.vedant.querybot.service.UploadJobService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/files")
 public class FileUploadController {
 
-    private final FileService fileService;
+    private final UploadJobService uploadJobService;
 
-    public FileUploadController(FileService fileService) {
-        this.fileService = fileService;
+    public FileUploadController(UploadJobService uploadJobService) {
+        this.uploadJobService = uploadJobService;
     }
 
+    // Queues the import and returns immediately; poll GET /api/files/jobs/{id} for progress.
+    // Optional "sheet" picks an Excel worksheet by name or 1-based position (default: first sheet).
     @PostMapping("/upload")
-    public ResponseEntity<UploadResponseDTO> upload(@RequestPart("file") MultipartFile file) {
+    public ResponseEntity<UploadJobDTO> upload(@RequestPart("file") MultipartFile file,
+                                               @RequestParam(value = "sheet", required = false) String sheet) {
         try {
-            UploadedTableMetadata meta = fileService.processUpload(file);
-            UploadResponseDTO resp = new UploadResponseDTO(meta.getTableName(), meta.getRowCount(), "Uploaded and imported");
-            return ResponseEntity.ok(resp);
+            UploadJob job = uploadJobService.submit(file, sheet);
+            return ResponseEntity.accepted().body(toDto(job, "Upload queued"));
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new UploadJobDTO("Upload failed: too many uploads in progress, try again later"));
         } catch (Exception ex) {
-            return ResponseEntity.badRequest().body(new UploadResponseDTO(null, 0, "Upload failed: " + ex.getMessage()));
+            return ResponseEntity.badRequest().body(new UploadJobDTO("Upload failed: " + ex.getMessage()));
         }
     }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<UploadJobDTO> job(@PathVariable("id") String id) {
+        return uploadJobService.get(id)
+                .map(job -> ResponseEntity.ok(toDto(job, null)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(new UploadJobDTO("Unknown job: " + id)));
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<UploadJobDTO> cancel(@PathVariable("id") String id) {
+        return uploadJobService.cancel(id)
+                .map(job -> ResponseEntity.ok(toDto(job, "Cancellation requested")))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(new UploadJobDTO("Unknown job: " + id)));
+    }
+
+    private UploadJobDTO toDto(UploadJob job, String message) {
+        UploadJobDTO dto = new UploadJobDTO(message);
+        dto.setJobId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setOriginalFilename(job.getOriginalFilename());
+        dto.setTableName(job.getTableName());
+        dto.setRowsParsed(job.getRowsParsed());
+        dto.setRowsInserted(job.getRowsInserted());
+        dto.setRowsPerSecond(job.getRowsPerSecond());
+        dto.setElapsedMs(job.getElapsed().toMillis());
+        dto.setError(job.getError());
+        return dto;
+    }
 }
@@ -0,0 +1,69 @@
+package com.vedant.querybot.controller;
+
+import com.vedant.querybot.dto.QueryHistoryDTO;
+import com.vedant.querybot.dto.QueryHistoryPageDTO;
+import com.vedant.querybot.entity.QueryHistory;
+import com.vedant.querybot.service.QueryHistoryService;
+import com.vedant.querybot.util.PreviewCodec;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+
+    private final QueryHistoryService historyService;
+
+    public HistoryController(QueryHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    // Newest-first page of stored questions (no previews); follow nextCursor for older entries
+    @GetMapping
+    public ResponseEntity<QueryHistoryPageDTO> list(@RequestParam(value = "table", required = false) String table,
+                                                    @RequestParam(value = "q", required = false) String search,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        QueryHistoryService.Page page;
+        try {
+            page = historyService.page(table, search, cursor, limit);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(new QueryHistoryPageDTO(ex.getMessage()));
+        }
+        QueryHistoryPageDTO dto = new QueryHistoryPageDTO();
+        dto.setItems(page.items().stream().map(HistoryController::summary).toList());
+        dto.setNextCursor(page.nextCursor());
+        return ResponseEntity.ok(dto);
+    }
+
+    // One stored question with its decoded result preview (compact or legacy JSON encoding)
+    @GetMapping("/{id}")
+    public ResponseEntity<QueryHistoryDTO> get(@PathVariable("id") long id) {
+        return historyService.get(id)
+                .map(h -> ResponseEntity.ok(toDto(h)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(new QueryHistoryDTO("Unknown history entry: " + id)));
+    }
+
+    private static QueryHistoryDTO summary(QueryHistory h) {
+        QueryHistoryDTO dto = new QueryHistoryDTO();
+        dto.setId(h.getId());
+        dto.setNlQuery(h.getNlQuery());
+        dto.setGeneratedSql(h.getGeneratedSql());
+        dto.setTableName(h.getTableName());
+        dto.setExecutedAt(h.getExecutedAt());
+        dto.setStatus(h.getStatus());
+        dto.setElapsedMs(h.getElapsedMs());
+        return dto;
+    }
+
+    private QueryHistoryDTO toDto(QueryHistory h) {
+        QueryHistoryDTO dto = summary(h);
+        try {
+            dto.setRows(PreviewCodec.decode(h.getResultPreview()));
+        } catch (IllegalArgumentException ex) {
+            dto.setMessage("Result preview unreadable");
+        }
+        return dto;
+    }
+}
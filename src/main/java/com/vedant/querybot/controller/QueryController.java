@@ -2,58 +2,231 @@ package com.vedant.querybot.controller;
 
 import com.vedant.querybot.dto.NLQueryRequestDTO;
 import com.vedant.querybot.dto.NLQueryResponseDTO;
+import com.vedant.querybot.service.QueryCancelledException;
 import com.vedant.querybot.service.QueryService;
+import com.vedant.querybot.service.QueryStreamListener;
+import com.vedant.querybot.util.TabularResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/query")
 public class QueryController {
 
+    // Conversation memory and cancellation are keyed by this id. Clients behind a load balancer without
+    // sticky sessions send it on every request (the JDBC memory store is shared by all replicas); without
+    // it the container's HttpSession id is used. The id in effect is echoed in the response header.
+    static final String CONVERSATION_HEADER = "X-Conversation-Id";
+    private static final Pattern CONVERSATION_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+
     private final QueryService queryService;
+    private final long streamTimeoutMs;
 
-    public QueryController(QueryService queryService) {
+    public QueryController(
+            QueryService queryService,
+            @Value("${query.stream.timeout-ms:150000}") long streamTimeoutMs
+    ) {
         this.queryService = queryService;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
+    // Returns a deferred result: the servlet thread is released while the LLM calls are in flight.
+    // If the client disconnects or the async request times out, the question is cancelled.
     @PostMapping("/nl")
-    public ResponseEntity<NLQueryResponseDTO> nlQuery(@RequestBody NLQueryRequestDTO req, HttpServletRequest request) {
+    public DeferredResult<ResponseEntity<NLQueryResponseDTO>> nlQuery(@RequestBody NLQueryRequestDTO req,
+                                                                      HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = conversationId(request, response);
+        String queryId = queryId(req.getQueryId());
+        // no explicit timeout: spring.mvc.async.request-timeout applies
+        DeferredResult<ResponseEntity<NLQueryResponseDTO>> deferred = new DeferredResult<>();
+        deferred.onError(ex -> queryService.cancel(queryId, sessionId));
+        deferred.onTimeout(() -> queryService.cancel(queryId, sessionId));
+
+        queryService.executeNlQueryWithSummaryAsync(req.getNlQuery(), req.getTargetTable(), sessionId, queryId)
+                .handle((result, error) -> {
+                    if (error == null) {
+                        NLQueryResponseDTO dto = new NLQueryResponseDTO();
+                        dto.setQueryId(queryId);
+                        dto.setSql(result.sql());
+                        dto.setRows(result.rows());
+                        dto.setMessage("OK");
+                        dto.setNlAnswer(result.nlAnswer());
+                        dto.setTruncated(result.truncated());
+                        dto.setTotalRowsEstimate(result.totalRowsEstimate());
+                        return ResponseEntity.ok(dto);
+                    }
+                    Throwable ex = unwrap(error);
+                    NLQueryResponseDTO dto = new NLQueryResponseDTO();
+                    dto.setQueryId(queryId);
+                    dto.setMessage(errorMessage(ex));
+                    return ResponseEntity.status(errorStatus(ex)).body(dto);
+                })
+                .thenAccept(deferred::setResult);
+        return deferred;
+    }
+
+    // Cancel a running question of the current session (its queryId from the request body or the "started" event)
+    @PostMapping("/nl/{queryId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable("queryId") String queryId,
+                                                      HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = conversationId(request, response);
+        if (queryService.cancel(queryId, sessionId)) {
+            return ResponseEntity.accepted().body(Map.of("status", "cancelling", "queryId", queryId));
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("status", "not_running", "queryId", queryId));
+    }
+
+    // Server-Sent Events: "started" with the queryId, "sql" once validated, "rows" batches while fetched,
+    // "token" per summary delta, then "done" (or "error"); each event's data is JSON so newlines in tokens
+    // survive the framing. A client that goes away cancels the question.
+    @GetMapping(path = "/nl/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter nlQueryStream(@RequestParam("q") String nlQuery,
+                                    @RequestParam(value = "table", required = false) String targetTable,
+                                    @RequestParam(value = "id", required = false) String requestedId,
+                                    HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = conversationId(request, response);
+        String queryId = queryId(requestedId);
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Runnable cancel = () -> queryService.cancel(queryId, sessionId);
+        emitter.onTimeout(cancel);
+        emitter.onError(ex -> cancel.run());
+
+        QueryStreamListener listener = new QueryStreamListener() {
+            @Override
+            public void onSql(String sql) {
+                sendOrCancel("sql", Map.of("sql", sql));
+            }
+
+            @Override
+            public void onRows(TabularResult rows) {
+                sendOrCancel("rows", rows);
+            }
+
+            @Override
+            public void onToken(String token) {
+                sendOrCancel("token", Map.of("text", token));
+            }
+
+            private void sendOrCancel(String event, Object data) {
+                try {
+                    send(emitter, event, data);
+                } catch (UncheckedIOException ex) {
+                    // client gone: stop the query instead of finishing it for nobody
+                    cancel.run();
+                    throw ex;
+                }
+            }
+        };
+
+        try {
+            send(emitter, "started", Map.of("queryId", queryId));
+        } catch (UncheckedIOException ex) {
+            emitter.complete();
+            return emitter;
+        }
+        queryService.streamNlQuery(nlQuery, targetTable, sessionId, queryId, listener)
+                .whenComplete((result, error) -> {
+                    try {
+                        if (error == null) {
+                            Map<String, Object> done = new HashMap<>();
+                            done.put("nlAnswer", result.nlAnswer());
+                            done.put("rowCount", result.rows().rowCount());
+                            done.put("truncated", result.truncated());
+                            done.put("totalRowsEstimate", result.totalRowsEstimate());
+                            send(emitter, "done", done);
+                        } else {
+                            Throwable ex = unwrap(error);
+                            Map<String, Object> body = new HashMap<>();
+                            body.put("status", errorStatus(ex));
+                            body.put("message", errorMessage(ex));
+                            send(emitter, "error", body);
+                        }
+                        emitter.complete();
+                    } catch (UncheckedIOException ignored) {
+                        // client already gone
+                        emitter.complete();
+                    }
+                });
+        return emitter;
+    }
+
+    // Explicit X-Conversation-Id (letters, digits, '-', '_'; a UUID is a good choice), else the HttpSession id
+    static String conversationId(HttpServletRequest request, HttpServletResponse response) {
+        String requested = request.getHeader(CONVERSATION_HEADER);
+        String id;
+        if (requested == null || requested.isBlank()) {
+            id = request.getSession().getId();
+        } else {
+            id = requested.trim();
+            if (!CONVERSATION_ID.matcher(id).matches()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid " + CONVERSATION_HEADER);
+            }
+        }
+        response.setHeader(CONVERSATION_HEADER, id);
+        return id;
+    }
+
+    private static String queryId(String requested) {
+        return requested == null || requested.isBlank() ? UUID.randomUUID().toString() : requested.trim();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // 400 invalid question or SQL, 409 cancelled, 504 execution budget exceeded, 500 anything else
+    private static int errorStatus(Throwable ex) {
+        if (ex instanceof IllegalArgumentException) return 400;
+        if (ex instanceof QueryCancelledException) return 409;
+        if (ex instanceof QueryTimeoutException) return 504;
+        return 500;
+    }
+
+    private static String errorMessage(Throwable ex) {
+        if (ex instanceof IllegalArgumentException || ex instanceof QueryTimeoutException) return ex.getMessage();
+        if (ex instanceof QueryCancelledException) return "Query cancelled";
+        return "Execution error: " + ex.getMessage();
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
         try {
-            String sessionId = request.getSession().getId();
-            QueryService.QueryResult result = queryService.executeNlQueryWithSummary(req.getNlQuery(), req.getTargetTable(), sessionId);
-            NLQueryResponseDTO dto = new NLQueryResponseDTO();
-            dto.setSql(result.sql());
-            dto.setRows(result.rows());
-            dto.setMessage("OK");
-            dto.setNlAnswer(result.nlAnswer());
-            return ResponseEntity.ok(dto);
-        } catch (IllegalArgumentException ex) {
-            NLQueryResponseDTO dto = new NLQueryResponseDTO();
-            dto.setMessage(ex.getMessage());
-            return ResponseEntity.badRequest().body(dto);
-        } catch (Exception ex) {
-            NLQueryResponseDTO dto = new NLQueryResponseDTO();
-            dto.setMessage("Execution error: " + ex.getMessage());
-            return ResponseEntity.status(500).body(dto);
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<Map<String, String>>> getHistory(HttpServletRequest request) {
-        String sessionId = request.getSession().getId();
+    public ResponseEntity<List<Map<String, String>>> getHistory(HttpServletRequest request, HttpServletResponse response) {
+        String sessionId = conversationId(request, response);
         List<Map<String, String>> conv = queryService.getConversation(sessionId);
         return ResponseEntity.ok(conv);
     }
 
     @PostMapping("/memory")
-    public ResponseEntity<Map<String, Object>> addMemory(@RequestBody Map<String, String> body, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> addMemory(@RequestBody Map<String, String> body,
+                                                         HttpServletRequest request, HttpServletResponse response) {
         String role = body.getOrDefault("role", "assistant");
         String content = body.getOrDefault("content", "");
-        String sessionId = request.getSession().getId();
+        String sessionId = conversationId(request, response);
         if (sessionId != null && !sessionId.isBlank() && content != null && !content.isBlank()) {
             queryService.addToMemory(sessionId, role, content);
         }
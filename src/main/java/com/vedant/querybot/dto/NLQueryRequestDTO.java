@@ -3,6 +3,8 @@ package com.vedant.querybot.dto;
 public class NLQueryRequestDTO {
     private String nlQuery;
     private String targetTable; // optional hint
+    // optional client-chosen id (letters, digits, '-', '_'); lets the client cancel the question while it runs
+    private String queryId;
 
     public NLQueryRequestDTO() {}
 
@@ -11,4 +13,7 @@ public class NLQueryRequestDTO {
 
     public String getTargetTable() { return targetTable; }
     public void setTargetTable(String targetTable) { this.targetTable = targetTable; }
+
+    public String getQueryId() { return queryId; }
+    public void setQueryId(String queryId) { this.queryId = queryId; }
 }
@@ -1,32 +1,46 @@
 package com.vedant.querybot.dto;
 
-import java.util.List;
-import java.util.Map;
+import com.vedant.querybot.util.TabularResult;
 
 public class NLQueryResponseDTO {
+    private String queryId;
     private String sql;
-    private List<Map<String, Object>> rows;
+    // columnar; serialized as a list of row objects
+    private TabularResult rows;
     private String message;
     // Natural language explanation / answer generated by the LLM
     private String nlAnswer;
+    // true when rows were cut at the configured row/byte budget
+    private boolean truncated;
+    // exact row count, or the planner's estimate when truncated (null if unknown)
+    private Long totalRowsEstimate;
 
     public NLQueryResponseDTO() {}
 
-    public NLQueryResponseDTO(String sql, List<Map<String, Object>> rows, String message) {
+    public NLQueryResponseDTO(String sql, TabularResult rows, String message) {
         this.sql = sql;
         this.rows = rows;
         this.message = message;
     }
 
+    public String getQueryId() { return queryId; }
+    public void setQueryId(String queryId) { this.queryId = queryId; }
+
     public String getSql() { return sql; }
     public void setSql(String sql) { this.sql = sql; }
 
-    public List<Map<String, Object>> getRows() { return rows; }
-    public void setRows(List<Map<String, Object>> rows) { this.rows = rows; }
+    public TabularResult getRows() { return rows; }
+    public void setRows(TabularResult rows) { this.rows = rows; }
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
 
     public String getNlAnswer() { return nlAnswer; }
     public void setNlAnswer(String nlAnswer) { this.nlAnswer = nlAnswer; }
+
+    public boolean isTruncated() { return truncated; }
+    public void setTruncated(boolean truncated) { this.truncated = truncated; }
+
+    public Long getTotalRowsEstimate() { return totalRowsEstimate; }
+    public void setTotalRowsEstimate(Long totalRowsEstimate) { this.totalRowsEstimate = totalRowsEstimate; }
 }
@@ -0,0 +1,52 @@
+package com.vedant.querybot.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public class QueryHistoryDTO {
+    private Long id;
+    private String nlQuery;
+    private String generatedSql;
+    private String tableName;
+    private Instant executedAt;
+    // OK, CANCELLED or TIMEOUT
+    private String status;
+    private Long elapsedMs;
+    // Decoded result preview (first rows of the result); only on single-entry reads
+    private List<Map<String, Object>> rows;
+    private String message;
+
+    public QueryHistoryDTO() {}
+
+    public QueryHistoryDTO(String message) {
+        this.message = message;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNlQuery() { return nlQuery; }
+    public void setNlQuery(String nlQuery) { this.nlQuery = nlQuery; }
+
+    public String getGeneratedSql() { return generatedSql; }
+    public void setGeneratedSql(String generatedSql) { this.generatedSql = generatedSql; }
+
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
+    public Instant getExecutedAt() { return executedAt; }
+    public void setExecutedAt(Instant executedAt) { this.executedAt = executedAt; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(Long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public List<Map<String, Object>> getRows() { return rows; }
+    public void setRows(List<Map<String, Object>> rows) { this.rows = rows; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
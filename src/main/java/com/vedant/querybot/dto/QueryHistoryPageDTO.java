@@ -0,0 +1,25 @@
+package com.vedant.querybot.dto;
+
+import java.util.List;
+
+public class QueryHistoryPageDTO {
+    private List<QueryHistoryDTO> items;
+    // Pass back as ?cursor= for the next page; null when there are no more entries
+    private String nextCursor;
+    private String message;
+
+    public QueryHistoryPageDTO() {}
+
+    public QueryHistoryPageDTO(String message) {
+        this.message = message;
+    }
+
+    public List<QueryHistoryDTO> getItems() { return items; }
+    public void setItems(List<QueryHistoryDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
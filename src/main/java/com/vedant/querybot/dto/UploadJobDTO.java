@@ -0,0 +1,50 @@
+package com.vedant.querybot.dto;
+
+public class UploadJobDTO {
+    private String jobId;
+    private String status;          // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private String originalFilename;
+    private String tableName;       // set once COMPLETED
+    private long rowsParsed;
+    private long rowsInserted;
+    private double rowsPerSecond;
+    private long elapsedMs;
+    private String error;
+    private String message;
+
+    public UploadJobDTO() {}
+
+    public UploadJobDTO(String message) {
+        this.message = message;
+    }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
+    public long getRowsParsed() { return rowsParsed; }
+    public void setRowsParsed(long rowsParsed) { this.rowsParsed = rowsParsed; }
+
+    public long getRowsInserted() { return rowsInserted; }
+    public void setRowsInserted(long rowsInserted) { this.rowsInserted = rowsInserted; }
+
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
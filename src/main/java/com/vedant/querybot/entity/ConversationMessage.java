@@ -0,0 +1,53 @@
+package com.vedant.querybot.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+// One conversation-memory message; rows are only appended, the last N per session are read via (session_id, id)
+@Entity
+@Table(name = "conversation_message", indexes = {
+        @Index(name = "idx_conversation_message_session", columnList = "session_id, id"),
+        @Index(name = "idx_conversation_message_created", columnList = "created_at")
+})
+public class ConversationMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", length = 128, nullable = false)
+    private String sessionId;
+
+    @Column(name = "role", length = 16, nullable = false)
+    private String role;
+
+    @Column(name = "content", columnDefinition = "text", nullable = false)
+    private String content;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    public ConversationMessage() {}
+
+    public ConversationMessage(String sessionId, String role, String content) {
+        this.sessionId = sessionId;
+        this.role = role;
+        this.content = content;
+    }
+
+    // Getters / setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
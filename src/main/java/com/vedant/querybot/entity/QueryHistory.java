@@ -3,8 +3,13 @@ package com.vedant.querybot.entity;
 import jakarta.persistence.*;
 import java.time.Instant;
 
+// (executed_at, id) serves keyset pagination newest-first; (table_name, executed_at, id) the same per table.
+// The full-text index on nl_query is created at startup (see QueryHistoryService).
 @Entity
-@Table(name = "query_history")
+@Table(name = "query_history", indexes = {
+        @Index(name = "idx_query_history_executed", columnList = "executed_at, id"),
+        @Index(name = "idx_query_history_table_executed", columnList = "table_name, executed_at, id")
+})
 public class QueryHistory {
 
     @Id
@@ -17,6 +22,10 @@ public class QueryHistory {
     @Column(name="generated_sql", columnDefinition = "text", nullable = false)
     private String generatedSql;
 
+    // Table the question was asked against
+    @Column(name="table_name", length = 128)
+    private String tableName;
+
     // Small preview or JSON of results (could be truncated)
     @Column(name="result_preview", columnDefinition = "text")
     private String resultPreview;
@@ -24,6 +33,14 @@ public class QueryHistory {
     @Column(name="executed_at", nullable = false)
     private Instant executedAt = Instant.now();
 
+    // OK, CANCELLED or TIMEOUT (null on rows written before statuses were recorded)
+    @Column(name="status", length = 16)
+    private String status;
+
+    // Time the SQL spent executing, in milliseconds
+    @Column(name="elapsed_ms")
+    private Long elapsedMs;
+
     public QueryHistory() {}
 
     // Getters / setters
@@ -36,9 +53,18 @@ public class QueryHistory {
     public String getGeneratedSql() { return generatedSql; }
     public void setGeneratedSql(String generatedSql) { this.generatedSql = generatedSql; }
 
+    public String getTableName() { return tableName; }
+    public void setTableName(String tableName) { this.tableName = tableName; }
+
     public String getResultPreview() { return resultPreview; }
     public void setResultPreview(String resultPreview) { this.resultPreview = resultPreview; }
 
     public Instant getExecutedAt() { return executedAt; }
     public void setExecutedAt(Instant executedAt) { this.executedAt = executedAt; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(Long elapsedMs) { this.elapsedMs = elapsedMs; }
 }
@@ -0,0 +1,29 @@
+package com.vedant.querybot.repository;
+
+import com.vedant.querybot.entity.ConversationMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ConversationMessageRepository extends JpaRepository<ConversationMessage, Long> {
+
+    // Newest first; served by the (session_id, id) index as a backward range scan with LIMIT
+    List<ConversationMessage> findBySessionIdOrderByIdDesc(String sessionId, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ConversationMessage m WHERE m.sessionId = :sessionId")
+    int deleteSession(String sessionId);
+
+    // Whole conversations whose newest message is older than the cutoff; an active session keeps its older turns
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ConversationMessage m WHERE m.sessionId IN "
+            + "(SELECT c.sessionId FROM ConversationMessage c GROUP BY c.sessionId HAVING max(c.createdAt) < :cutoff)")
+    int deleteSessionsIdleSince(Instant cutoff);
+}
@@ -0,0 +1,30 @@
+package com.vedant.querybot.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in query_history: the (executed_at, id) of the last row of a page.
+ * Clients see it as an opaque URL-safe token and pass it back to fetch the next page.
+ */
+public record HistoryCursor(Instant executedAt, long id) {
+
+    public String encode() {
+        String raw = executedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Throws IllegalArgumentException for tokens this class did not produce
+    public static HistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("Invalid history cursor");
+            return new HistoryCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid history cursor", ex);
+        }
+    }
+}
@@ -3,5 +3,5 @@ package com.vedant.querybot.repository;
 import com.vedant.querybot.entity.QueryHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface QueryHistoryRepository extends JpaRepository<QueryHistory, Long> {
+public interface QueryHistoryRepository extends JpaRepository<QueryHistory, Long>, QueryHistoryRepositoryCustom {
 }
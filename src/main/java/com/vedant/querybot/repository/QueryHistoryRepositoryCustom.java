@@ -0,0 +1,21 @@
+package com.vedant.querybot.repository;
+
+import com.vedant.querybot.entity.QueryHistory;
+
+import java.util.List;
+
+/**
+ * Hand-written query_history reads that Spring Data cannot derive (row-value keyset, full-text search).
+ */
+public interface QueryHistoryRepositoryCustom {
+
+    /**
+     * Newest-first page of history strictly after {@code after} (null for the first page),
+     * optionally restricted to one table and to questions matching every word of {@code search}
+     * (prefix match). Returns at most {@code limit} rows, without result previews.
+     */
+    List<QueryHistory> findPage(String table, String search, HistoryCursor after, int limit);
+
+    // Create the full-text index on nl_query if it is missing; JPA cannot declare expression indexes
+    void ensureSearchIndex();
+}
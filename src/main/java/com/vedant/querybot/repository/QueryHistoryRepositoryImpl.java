@@ -0,0 +1,99 @@
+package com.vedant.querybot.repository;
+
+import com.vedant.querybot.entity.QueryHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JDBC implementation of {@link QueryHistoryRepositoryCustom}.
+ *
+ * Pages are keyset-paginated on (executed_at, id) so every page is one index range scan of at most
+ * {@code limit} rows, however deep the client has scrolled (no OFFSET). result_preview is not selected:
+ * listings stay small and the preview is read per entry via findById.
+ */
+public class QueryHistoryRepositoryImpl implements QueryHistoryRepositoryCustom {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryHistoryRepositoryImpl.class);
+
+    // Must match the WHERE expression below for the planner to use the index
+    static final String SEARCH_VECTOR = "to_tsvector('simple', nl_query)";
+    private static final int MAX_SEARCH_TERMS = 8;
+
+    private static final RowMapper<QueryHistory> ROW = (rs, i) -> {
+        QueryHistory h = new QueryHistory();
+        h.setId(rs.getLong("id"));
+        h.setNlQuery(rs.getString("nl_query"));
+        h.setGeneratedSql(rs.getString("generated_sql"));
+        h.setTableName(rs.getString("table_name"));
+        Timestamp ts = rs.getTimestamp("executed_at");
+        h.setExecutedAt(ts == null ? null : ts.toInstant());
+        h.setStatus(rs.getString("status"));
+        long elapsed = rs.getLong("elapsed_ms");
+        h.setElapsedMs(rs.wasNull() ? null : elapsed);
+        return h;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QueryHistoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<QueryHistory> findPage(String table, String search, HistoryCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, nl_query, generated_sql, table_name, executed_at, status, elapsed_ms FROM query_history WHERE 1=1");
+        List<Object> args = new ArrayList<>();
+        if (table != null && !table.isBlank()) {
+            sql.append(" AND table_name = ?");
+            args.add(table.trim());
+        }
+        String tsQuery = tsQuery(search);
+        if (tsQuery != null) {
+            sql.append(" AND ").append(SEARCH_VECTOR).append(" @@ to_tsquery('simple', ?)");
+            args.add(tsQuery);
+        }
+        if (after != null) {
+            sql.append(" AND (executed_at, id) < (?, ?)");
+            args.add(Timestamp.from(after.executedAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY executed_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW, args.toArray());
+    }
+
+    @Override
+    public void ensureSearchIndex() {
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_query_history_nl_query_fts ON query_history USING gin ("
+                    + SEARCH_VECTOR + ")");
+        } catch (DataAccessException ex) {
+            // text search still works without the index, it just scans
+            log.warn("Could not create the query_history full-text index: {}", ex.getMessage());
+        }
+    }
+
+    // "top  Movies, 2023" -> "top:* & movies:* & 2023:*"; only letters and digits reach to_tsquery,
+    // so user input can never produce tsquery syntax errors. Null when there is nothing to search for.
+    static String tsQuery(String search) {
+        if (search == null) return null;
+        StringBuilder out = new StringBuilder();
+        int terms = 0;
+        for (String word : search.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (terms++ == MAX_SEARCH_TERMS) break;
+            if (out.length() > 0) out.append(" & ");
+            out.append(word).append(":*");
+        }
+        return out.length() == 0 ? null : out.toString();
+    }
+}
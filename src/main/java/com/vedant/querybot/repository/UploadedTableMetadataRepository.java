@@ -6,4 +6,7 @@ import java.util.Optional;
 
 public interface UploadedTableMetadataRepository extends JpaRepository<UploadedTableMetadata, Long> {
     Optional<UploadedTableMetadata> findByTableName(String tableName);
+
+    // Latest upload via the primary key index (ORDER BY id DESC LIMIT 1)
+    Optional<UploadedTableMetadata> findTopByOrderByIdDesc();
 }
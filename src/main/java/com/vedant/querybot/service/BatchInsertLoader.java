@@ -0,0 +1,100 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.RowChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static com.vedant.querybot.util.SchemaGenerator.quoteIdentifier;
+
+/**
+ * Portable loader: one parameterized INSERT executed as a JDBC batch per chunk.
+ * Used when COPY is disabled or the connection is not PostgreSQL.
+ */
+public class BatchInsertLoader implements TableLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchInsertLoader.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final int columnCount;
+
+    public BatchInsertLoader(JdbcTemplate jdbcTemplate, String table, List<String> cols) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = buildInsertSql(table, cols);
+        this.columnCount = cols.size();
+        logger.debug("INSERT SQL: {}", insertSql);
+    }
+
+    @Override
+    public void append(RowChunk chunk) throws IOException {
+        try {
+            jdbcTemplate.batchUpdate(insertSql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    for (int c = 0; c < columnCount; c++) {
+                        setPreparedValue(ps, c + 1, chunk, i, c);
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return chunk.size();
+                }
+            });
+        } catch (Exception ex) {
+            logger.error("INSERT batch failed", ex);
+            throw new IOException("Upload failed: INSERT error: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // every batch is executed synchronously in append()
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // Build INSERT SQL and quote identifiers (Postgres-style double quotes).
+    private static String buildInsertSql(String table, List<String> cols) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("INSERT INTO ").append(quoteIdentifier(table)).append(" (");
+        for (int i = 0; i < cols.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(quoteIdentifier(cols.get(i)));
+        }
+        sb.append(") VALUES (");
+        for (int i = 0; i < cols.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append("?");
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    // Set PreparedStatement value from the encoded chunk, using the column's SQL type
+    private static void setPreparedValue(PreparedStatement ps, int idx, RowChunk chunk, int row, int col)
+            throws SQLException {
+        if (chunk.isNull(row, col)) {
+            ps.setObject(idx, null);
+            return;
+        }
+        switch (chunk.type(col)) {
+            case BIGINT -> ps.setLong(idx, chunk.getLong(row, col));
+            case DOUBLE -> ps.setDouble(idx, chunk.getDouble(row, col));
+            case BOOLEAN -> ps.setBoolean(idx, chunk.getBoolean(row, col));
+            case NUMERIC -> ps.setBigDecimal(idx, (BigDecimal) chunk.getObject(row, col));
+            case TEXT -> ps.setString(idx, (String) chunk.getObject(row, col));
+            default -> ps.setObject(idx, chunk.getObject(row, col));
+        }
+    }
+}
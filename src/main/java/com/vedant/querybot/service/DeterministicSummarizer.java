@@ -0,0 +1,82 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers without a model call when the result shape leaves nothing to interpret:
+ * an empty result, a single scalar (COUNT, MAX, AVG ...) or a single row, which is phrased
+ * from the same fact snippet the LLM summary is grounded on. Conversational questions and
+ * multi-row results still go to the LLM.
+ *
+ * Every decision is counted in {@code query.summary{source=template|llm}}, so the share of
+ * avoided LLM calls is template / (template + llm).
+ */
+@Component
+public class DeterministicSummarizer {
+
+    private final Counter template;
+    private final Counter llm;
+
+    public DeterministicSummarizer(MeterRegistry meterRegistry) {
+        this.template = Counter.builder("query.summary").tag("source", "template")
+                .description("Answers phrased without an LLM call").register(meterRegistry);
+        this.llm = Counter.builder("query.summary").tag("source", "llm")
+                .description("Answers that needed the LLM summary").register(meterRegistry);
+    }
+
+    // Templated answer, or empty when the LLM should summarize (conversational question or a multi-row result)
+    public Optional<String> summarize(List<Map<String, Object>> rows, String factSnippet, boolean conversational) {
+        String text = conversational ? null : phrase(rows, factSnippet);
+        (text == null ? llm : template).increment();
+        return Optional.ofNullable(text);
+    }
+
+    private static String phrase(List<Map<String, Object>> rows, String factSnippet) {
+        if (rows == null || rows.isEmpty()) return "No rows matched your question.";
+        if (rows.size() > 1) return null;
+
+        Map<String, Object> row = rows.get(0);
+        if (row.size() == 1) {
+            Map.Entry<String, Object> cell = row.entrySet().iterator().next();
+            return "The " + label(cell.getKey()) + " is " + format(cell.getValue()) + ".";
+        }
+        // one row: the fact snippet already picks the relevant fields ("ROW1: product=Pen; amount=10")
+        String facts = factSnippet == null ? "" : factSnippet.replaceFirst("^ROW1: ", "").replace("; ", ", ");
+        if (facts.isBlank()) return null;
+        return "Found 1 matching row: " + facts + ".";
+    }
+
+    // "avg_price" -> "average price", "count" -> "count", "?column?" -> "result"
+    static String label(String column) {
+        String s = column == null ? "" : column.replaceAll("[^A-Za-z0-9]+", " ").trim().toLowerCase(Locale.ROOT);
+        if (s.isEmpty() || s.equals("column")) return "result";
+        s = (" " + s + " ").replace(" avg ", " average ").replace(" sum ", " total ")
+                .replace(" max ", " maximum ").replace(" min ", " minimum ").replace(" cnt ", " count ");
+        return s.trim();
+    }
+
+    static String format(Object value) {
+        if (value == null) return "empty";
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) return String.valueOf(d);
+            value = BigDecimal.valueOf(d);
+        }
+        if (value instanceof BigDecimal bd) {
+            // averages come back with many decimals: keep at most four
+            if (bd.scale() > 4) bd = bd.setScale(4, RoundingMode.HALF_UP);
+            bd = bd.stripTrailingZeros();
+            return (bd.scale() < 0 ? bd.setScale(0) : bd).toPlainString();
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,35 @@
+package com.vedant.querybot.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Turns a question into a fixed-length vector for {@link SemanticSqlCache}.
+ * Implementations return L2-normalized vectors of {@link #dimensions()} floats, so cosine
+ * similarity is a plain dot product. Throwing (or a failed future) is allowed; the cache treats it as a miss.
+ */
+public interface Embedder {
+
+    float[] embed(String text);
+
+    // Used on the question path. Embedders that do I/O override this so no thread waits on the network;
+    // the default computes in the calling thread.
+    default CompletableFuture<float[]> embedAsync(String text) {
+        try {
+            return CompletableFuture.completedFuture(embed(text));
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    int dimensions();
+
+    // Scale v to unit length in place (zero vectors are left alone)
+    static float[] normalize(float[] v) {
+        double sum = 0;
+        for (float f : v) sum += (double) f * f;
+        if (sum == 0) return v;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+        return v;
+    }
+}
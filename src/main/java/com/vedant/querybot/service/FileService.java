@@ -3,23 +3,30 @@
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vedant.querybot.entity.UploadedTableMetadata;
 import com.vedant.querybot.repository.UploadedTableMetadataRepository;
+import com.vedant.querybot.util.ColumnProfiler;
 import com.vedant.querybot.util.FileParser;
+import com.vedant.querybot.util.ParseOptions;
+import com.vedant.querybot.util.RowChunk;
+import com.vedant.querybot.util.RowReader;
 import com.vedant.querybot.util.SchemaGenerator;
+import com.vedant.querybot.util.SqlType;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.sql.Date;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.sql.Timestamp;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
+import static com.vedant.querybot.util.SchemaGenerator.quoteIdentifier;
+
 @Service
 public class FileService {
 
@@ -27,62 +34,103 @@ public class FileService {
 
     private final JdbcTemplate jdbcTemplate;
     private final UploadedTableMetadataRepository metadataRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper mapper = new ObjectMapper();
+    // rows per INSERT batch, and rows read up front for type inference
+    private final int chunkSize;
+    private final int sampleRows;
+    // "copy" streams through COPY FROM STDIN ("text" or "binary" format); "batch" uses JDBC batch INSERTs
+    private final String loaderMode;
+    private final String copyFormat;
+    // large CSV uploads are memory-mapped and parsed on this pool (null when disabled)
+    private final ForkJoinPool parsePool;
+    private final ParseOptions parseOptions;
 
-    public FileService(JdbcTemplate jdbcTemplate, UploadedTableMetadataRepository metadataRepository) {
+    public FileService(
+            JdbcTemplate jdbcTemplate,
+            UploadedTableMetadataRepository metadataRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${upload.chunk-size:5000}") int chunkSize,
+            @Value("${upload.sample-rows:1000}") int sampleRows,
+            @Value("${upload.loader:copy}") String loaderMode,
+            @Value("${upload.copy-format:binary}") String copyFormat,
+            @Value("${upload.parallel-parse.enabled:true}") boolean parallelParse,
+            @Value("${upload.parallel-parse.threads:0}") int parseThreads,
+            @Value("${upload.parallel-parse.min-bytes:67108864}") long parallelMinBytes,
+            @Value("${upload.parallel-parse.range-bytes:16777216}") int rangeBytes,
+            @Value("${upload.parallel-parse.max-inflight-bytes:67108864}") long maxInflightBytes,
+            @Value("${upload.parallel-parse.ordered:true}") boolean orderedRanges
+    ) {
         this.jdbcTemplate = jdbcTemplate;
         this.metadataRepository = metadataRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.sampleRows = Math.max(1, sampleRows);
+        this.loaderMode = loaderMode;
+        this.copyFormat = copyFormat;
+        if (parallelParse) {
+            int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+            this.parsePool = new ForkJoinPool(threads);
+            this.parseOptions = new ParseOptions(parsePool, parallelMinBytes, rangeBytes, maxInflightBytes,
+                    orderedRanges, null);
+        } else {
+            this.parsePool = null;
+            this.parseOptions = ParseOptions.SEQUENTIAL;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (parsePool != null) parsePool.shutdownNow();
     }
 
-    public UploadedTableMetadata processUpload(MultipartFile file) throws IOException {
-        final List<Map<String, String>> rows = Optional.ofNullable(FileParser.parse(file))
-                .orElse(Collections.emptyList());
+    // Import a spooled upload (sheet optionally picks the Excel worksheet). Progress is reported per chunk;
+    // if the progress sink is cancelled the import stops at the next chunk boundary, the partial table
+    // is dropped and CancellationException is thrown.
+    public UploadedTableMetadata processUpload(String originalFilename, Path file, String sheet,
+                                               UploadProgress progress) throws IOException {
+        try (RowReader reader = FileParser.open(originalFilename, file, parseOptions.withSheet(sheet))) {
+            return load(originalFilename, reader, progress);
+        }
+    }
 
-        String base = Optional.ofNullable(file.getOriginalFilename()).orElse("upload");
+    // Stream rows from the reader into a new table. Only the inference sample and one
+    // chunk are held in memory at a time, regardless of the file size.
+    private UploadedTableMetadata load(String originalFilename, RowReader reader, UploadProgress progress) throws IOException {
+        String base = Optional.ofNullable(originalFilename).orElse("upload");
         base = base.replaceAll("\\.[^.]*$", "");
         String tableName = SchemaGenerator.sanitizeIdentifier(base + "_" + System.currentTimeMillis());
 
-        // Build samples from original headers (preserve insertion order)
-        LinkedHashMap<String, List<String>> samplesByOriginal = new LinkedHashMap<>();
-        for (Map<String, String> r : rows) {
-            for (Map.Entry<String, String> e : r.entrySet()) {
-                samplesByOriginal.computeIfAbsent(e.getKey(), k -> new ArrayList<>()).add(e.getValue());
-            }
+        // Bounded prefix used for type inference; these rows are inserted first
+        List<String[]> sample = new ArrayList<>();
+        String[] row;
+        while (sample.size() < sampleRows && (row = reader.readRow()) != null) {
+            sample.add(row);
         }
-        if (samplesByOriginal.isEmpty()) {
-            samplesByOriginal.put("col1", Collections.singletonList(""));
+        progress.rowsParsed(sample.size());
+
+        // headers are read after the sample: JSON readers discover keys as records go by
+        List<String> originalOrdered = new ArrayList<>(reader.getHeaders());
+        if (originalOrdered.isEmpty()) {
+            originalOrdered.add("col1");
         }
 
         // Map original header -> sanitized column name (safe for SQL)
-        List<String> originalOrdered = new ArrayList<>(samplesByOriginal.keySet());
         List<String> safeColumns = new ArrayList<>(originalOrdered.size());
         Map<String, String> originalToSafe = new LinkedHashMap<>();
         for (String orig : originalOrdered) {
-            String safe = sanitizeColumnName(orig);
-            // ensure uniqueness
-            String candidate = safe;
-            int suffix = 1;
-            while (safeColumns.contains(candidate)) {
-                candidate = safe + "_" + (++suffix);
-            }
-            safeColumns.add(candidate);
-            originalToSafe.put(orig, candidate);
-        }
-
-        // Build samples map keyed by safe column names for schema inference
-        LinkedHashMap<String, List<String>> samplesBySafe = new LinkedHashMap<>();
-        for (String orig : originalOrdered) {
-            samplesBySafe.put(originalToSafe.get(orig), samplesByOriginal.get(orig));
+            addColumnName(orig, safeColumns, originalToSafe);
         }
 
-        // infer SQL types per column
-        List<String> inferredTypes = new ArrayList<>();
-        for (Map.Entry<String, List<String>> e : samplesBySafe.entrySet()) {
-            inferredTypes.add(inferSqlType(e.getValue()));
-        }
+        // Profile the sample once: the profiles give the CREATE TABLE types and keep
+        // accumulating over later chunks to drive widening; types is what the table currently has
+        List<ColumnProfiler> profiles = ColumnProfiler.forColumns(safeColumns.size());
+        ColumnProfiler.acceptAll(profiles, sample);
+        List<SqlType> types = new ArrayList<>(safeColumns.size());
+        for (ColumnProfiler p : profiles) types.add(p.type());
 
         // Build and execute CREATE TABLE using quoted identifiers (so exact names match INSERT)
-        String createSql = buildCreateTableSql(tableName, samplesBySafe);
+        String createSql = buildCreateTableSql(tableName, safeColumns, types);
         logger.debug("CREATE SQL: {}", createSql);
         try {
             jdbcTemplate.execute(createSql);
@@ -91,134 +139,214 @@ public class FileService {
             throw new IOException("Upload failed: CREATE TABLE error: " + ex.getMessage(), ex);
         }
 
-        // Build INSERT SQL with explicit quoting to ensure identifiers match exactly
-        String insertSql = buildInsertSql(tableName, safeColumns);
-        logger.debug("INSERT SQL: {}", insertSql);
-
-        final int rowsCount = rows.size();
-        if (rowsCount > 0) {
-            // validate table column count before attempting insert
-            try {
-                int createdColCount = fetchTableColumnCount(tableName);
-                if (createdColCount != safeColumns.size()) {
-                    String msg = String.format("created table columns=%d but insert columns=%d",
-                            createdColCount, safeColumns.size());
-                    logger.error(msg + " - table: {}", tableName);
-                    throw new IOException("Upload failed: CREATE/INSERT column count mismatch: " + msg);
-                }
-            } catch (IOException ioe) {
-                throw ioe;
-            } catch (Exception ex) {
-                logger.error("Failed to validate created table columns", ex);
-                throw new IOException("Upload failed: unable to validate created table columns: " + ex.getMessage(), ex);
-            }
+        int rowsCount = 0;
+        try {
+            if (!sample.isEmpty()) {
+                validateColumnCount(tableName, safeColumns.size());
 
-            final List<String> finalOriginalOrdered = Collections.unmodifiableList(originalOrdered);
-            final List<String> finalInferredTypes = Collections.unmodifiableList(inferredTypes);
+                // one columnar buffer reused for every chunk
+                RowChunk buffer = new RowChunk(Math.max(sample.size(), chunkSize));
+                TableLoader loader = openLoader(tableName, safeColumns);
+                try {
+                    rowsCount += insertChunk(loader, types, sample, buffer, progress);
+                    sample.clear();
 
-            try {
-                jdbcTemplate.batchUpdate(insertSql, new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        Map<String, String> row = rows.get(i);
-                        for (int c = 0; c < finalOriginalOrdered.size(); c++) {
-                            String origHeader = finalOriginalOrdered.get(c);
-                            String val = row.get(origHeader);
-                            setPreparedValue(ps, c + 1, val, finalInferredTypes.get(c));
+                    List<String[]> chunk = new ArrayList<>(chunkSize);
+                    while ((row = reader.readRow()) != null) {
+                        chunk.add(row);
+                        if (chunk.size() >= chunkSize) {
+                            progress.rowsParsed(chunk.size());
+                            loader = prepareChunk(loader, reader.getHeaders(), tableName, safeColumns, profiles,
+                                    types, originalToSafe, chunk);
+                            rowsCount += insertChunk(loader, types, chunk, buffer, progress);
+                            chunk.clear();
                         }
                     }
-
-                    @Override
-                    public int getBatchSize() {
-                        return rowsCount;
+                    if (!chunk.isEmpty()) {
+                        progress.rowsParsed(chunk.size());
+                        loader = prepareChunk(loader, reader.getHeaders(), tableName, safeColumns, profiles,
+                                types, originalToSafe, chunk);
+                        rowsCount += insertChunk(loader, types, chunk, buffer, progress);
                     }
-                });
-            } catch (Exception ex) {
-                logger.error("INSERT batch failed", ex);
-                throw new IOException("Upload failed: INSERT error: " + ex.getMessage(), ex);
+                } finally {
+                    loader.close();
+                }
+                logger.info("Imported {} rows into {}", rowsCount, tableName);
+                if (logger.isDebugEnabled()) {
+                    for (int c = 0; c < safeColumns.size(); c++) {
+                        logger.debug("Column {}.{}: {}", tableName, safeColumns.get(c), profiles.get(c));
+                    }
+                }
+            } else {
+                logger.info("No rows to insert for upload {}", originalFilename);
             }
-        } else {
-            logger.info("No rows to insert for upload {}", file.getOriginalFilename());
+        } catch (IOException | RuntimeException ex) {
+            // don't leave a half-loaded table behind without metadata pointing at it
+            dropTableQuietly(tableName);
+            throw ex;
         }
 
         UploadedTableMetadata meta = new UploadedTableMetadata();
-        meta.setOriginalFilename(file.getOriginalFilename());
+        meta.setOriginalFilename(originalFilename);
         meta.setTableName(tableName);
         meta.setRowCount(rowsCount);
         meta.setColumnsJson(mapper.writeValueAsString(originalToSafe)); // store mapping original->safe
-        return metadataRepository.save(meta);
+        UploadedTableMetadata saved = metadataRepository.save(meta);
+        eventPublisher.publishEvent(new TableUploadedEvent(saved, describe(tableName, safeColumns, types, originalToSafe)));
+        return saved;
     }
 
-    // Build CREATE TABLE with quoted identifiers and simple type inference
-    private String buildCreateTableSql(String table, Map<String, List<String>> samplesBySafe) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("CREATE TABLE ").append(quoteIdentifier(table)).append(" (");
-        boolean first = true;
-        for (Map.Entry<String, List<String>> e : samplesBySafe.entrySet()) {
-            if (!first) sb.append(", ");
-            first = false;
-            String col = e.getKey();
-            String type = inferSqlType(e.getValue());
-            sb.append(quoteIdentifier(col)).append(" ").append(type);
+    // Schema descriptor for the query path, built while the final column types are at hand
+    private static TableSchema describe(String table, List<String> cols, List<SqlType> types,
+                                        Map<String, String> originalToSafe) {
+        Map<String, String> safeToOriginal = new HashMap<>();
+        originalToSafe.forEach((orig, safe) -> safeToOriginal.putIfAbsent(safe, orig));
+        List<TableSchema.Column> columns = new ArrayList<>(cols.size());
+        for (int c = 0; c < cols.size(); c++) {
+            String col = cols.get(c);
+            columns.add(new TableSchema.Column(col, safeToOriginal.getOrDefault(col, col), types.get(c).sql()));
         }
-        sb.append(")");
-        return sb.toString();
+        return TableSchema.of(table, columns);
     }
 
-    // Simple heuristics to infer SQL column type from sample values
-    private String inferSqlType(List<String> samples) {
-        boolean anyNonEmpty = false;
-        boolean allInt = true;
-        boolean allDouble = true;
-        boolean allDate = true;
-        boolean allTimestamp = true;
-
-        Pattern intPat = Pattern.compile("^-?\\d+$");
-        Pattern doublePat = Pattern.compile("^-?\\d+(\\.\\d+)?$");
-        Pattern datePat = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
-        Pattern tsPat = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}(:\\d{2})?.*");
-
-        for (String s : samples) {
-            if (s == null || s.isBlank()) continue;
-            anyNonEmpty = true;
-            String v = s.trim();
-            if (!intPat.matcher(v).matches()) allInt = false;
-            if (!doublePat.matcher(v).matches()) allDouble = false;
-            if (!datePat.matcher(v).matches()) allDate = false;
-            if (!tsPat.matcher(v).matches()) allTimestamp = false;
-            if (!allInt && !allDouble && !allDate && !allTimestamp) break;
+    // COPY when enabled and the connection is PostgreSQL; otherwise batched INSERTs
+    private TableLoader openLoader(String table, List<String> cols) {
+        if ("copy".equalsIgnoreCase(loaderMode)) {
+            try {
+                return CopyTableLoader.open(jdbcTemplate, table, cols, "binary".equalsIgnoreCase(copyFormat));
+            } catch (Exception ex) {
+                logger.warn("COPY unavailable ({}), falling back to batch INSERT", ex.getMessage());
+            }
         }
+        return new BatchInsertLoader(jdbcTemplate, table, cols);
+    }
 
-        if (!anyNonEmpty) return "text";
-        if (allInt) return "bigint";
-        if (allDouble) return "double precision";
-        if (allTimestamp) return "timestamp";
-        if (allDate) return "date";
-        return "text";
+    // validate table column count before attempting insert
+    private void validateColumnCount(String tableName, int expected) throws IOException {
+        try {
+            int createdColCount = fetchTableColumnCount(tableName);
+            if (createdColCount != expected) {
+                String msg = String.format("created table columns=%d but insert columns=%d",
+                        createdColCount, expected);
+                logger.error(msg + " - table: {}", tableName);
+                throw new IOException("Upload failed: CREATE/INSERT column count mismatch: " + msg);
+            }
+        } catch (IOException ioe) {
+            throw ioe;
+        } catch (Exception ex) {
+            logger.error("Failed to validate created table columns", ex);
+            throw new IOException("Upload failed: unable to validate created table columns: " + ex.getMessage(), ex);
+        }
     }
 
-    // Build INSERT SQL and quote identifiers (Postgres-style double quotes).
-    private String buildInsertSql(String table, List<String> cols) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("INSERT INTO ").append(quoteIdentifier(table)).append(" (");
-        for (int i = 0; i < cols.size(); i++) {
-            if (i > 0) sb.append(", ");
-            sb.append(quoteIdentifier(cols.get(i)));
+    // Encode the rows into the columnar buffer (each cell parsed once) and hand it to the loader
+    private int insertChunk(TableLoader loader, List<SqlType> types, List<String[]> chunk, RowChunk buffer,
+                            UploadProgress progress) throws IOException {
+        if (progress.isCancelled()) {
+            throw new CancellationException("Upload cancelled");
+        }
+        buffer.reset(types);
+        for (String[] r : chunk) buffer.add(r);
+        loader.append(buffer);
+        progress.rowsInserted(chunk.size());
+        return chunk.size();
+    }
+
+    // Profile the chunk and bring the table in line with it before the rows are appended:
+    //  - headers that appeared after the table was created (keys first seen in a later JSON record)
+    //    become new columns typed from this chunk; earlier rows read as NULL,
+    //  - columns whose profile widened past the current type are ALTERed to the wider type.
+    // Rows already streamed must be committed before DDL; when columns are added the loader is
+    // reopened, because a COPY in progress is bound to the old column list.
+    private TableLoader prepareChunk(TableLoader loader, List<String> headers, String table, List<String> cols,
+                                     List<ColumnProfiler> profiles, List<SqlType> types,
+                                     Map<String, String> originalToSafe, List<String[]> chunk) throws IOException {
+        int existing = cols.size();
+        while (profiles.size() < headers.size()) profiles.add(new ColumnProfiler());
+        ColumnProfiler.acceptAll(profiles, chunk);
+
+        boolean widen = false;
+        for (int c = 0; c < existing && !widen; c++) widen = profiles.get(c).type() != types.get(c);
+        boolean add = headers.size() > existing;
+        if (!widen && !add) return loader;
+
+        if (add) loader.close();
+        else loader.flush();
+        for (int c = 0; c < existing; c++) {
+            SqlType widened = profiles.get(c).type();
+            if (widened != types.get(c)) {
+                widenColumn(table, cols.get(c), types.get(c), widened);
+                types.set(c, widened);
+            }
+        }
+        if (!add) return loader;
+        for (int c = existing; c < headers.size(); c++) {
+            String col = addColumnName(headers.get(c), cols, originalToSafe);
+            SqlType type = profiles.get(c).type();
+            String sql = "ALTER TABLE " + quoteIdentifier(table) + " ADD COLUMN " + quoteIdentifier(col) + " " + type.sql();
+            logger.info("Adding column {}.{} {}", table, col, type.sql());
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (Exception ex) {
+                logger.error("ADD COLUMN failed", ex);
+                throw new IOException("Upload failed: unable to add column " + col + ": " + ex.getMessage(), ex);
+            }
+            types.add(type);
+        }
+        return openLoader(table, cols);
+    }
+
+    // Sanitize a header into a unique column name, append it to cols and record the mapping
+    private String addColumnName(String orig, List<String> cols, Map<String, String> originalToSafe) {
+        String safe = sanitizeColumnName(orig);
+        // ensure uniqueness
+        String candidate = safe;
+        int suffix = 1;
+        while (cols.contains(candidate)) {
+            candidate = safe + "_" + (++suffix);
         }
-        sb.append(") VALUES (");
+        cols.add(candidate);
+        // duplicate headers get their own column; key the mapping by the safe name instead
+        if (originalToSafe.putIfAbsent(orig, candidate) != null) {
+            originalToSafe.put(candidate, candidate);
+        }
+        return candidate;
+    }
+
+    private void dropTableQuietly(String table) {
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + quoteIdentifier(table));
+            eventPublisher.publishEvent(new TableDroppedEvent(table));
+        } catch (Exception ex) {
+            logger.warn("Failed to drop partially loaded table {}", table, ex);
+        }
+    }
+
+    // A later row did not fit the type inferred from the sample: ALTER the column to the wider type
+    private void widenColumn(String table, String col, SqlType from, SqlType to) throws IOException {
+        String sql = "ALTER TABLE " + quoteIdentifier(table) + " ALTER COLUMN " + quoteIdentifier(col)
+                + " TYPE " + to.sql() + " USING " + quoteIdentifier(col) + "::" + to.sql();
+        logger.info("Widening column {}.{} from {} to {}", table, col, from.sql(), to.sql());
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (Exception ex) {
+            logger.error("ALTER COLUMN failed", ex);
+            throw new IOException("Upload failed: unable to widen column " + col + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    // Build CREATE TABLE with quoted identifiers and the inferred column types
+    private String buildCreateTableSql(String table, List<String> cols, List<SqlType> types) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("CREATE TABLE ").append(quoteIdentifier(table)).append(" (");
         for (int i = 0; i < cols.size(); i++) {
             if (i > 0) sb.append(", ");
-            sb.append("?");
+            sb.append(quoteIdentifier(cols.get(i))).append(" ").append(types.get(i).sql());
         }
         sb.append(")");
         return sb.toString();
     }
 
-    private String quoteIdentifier(String id) {
-        if (id == null) return "\"\"";
-        return "\"" + id.replace("\"", "\"\"") + "\"";
-    }
-
     // Query information_schema to confirm created table column count
     private int fetchTableColumnCount(String table) {
         String sql = "SELECT count(*) FROM information_schema.columns " +
@@ -227,37 +355,6 @@ public class FileService {
         return cnt == null ? 0 : cnt;
     }
 
-    // Set PreparedStatement value using inferred SQL type
-    private void setPreparedValue(PreparedStatement ps, int idx, String val, String sqlType) throws SQLException {
-        if (val == null || val.isBlank()) {
-            ps.setObject(idx, null);
-            return;
-        }
-        String v = val.trim();
-        try {
-            if (sqlType != null) {
-                String t = sqlType.toLowerCase(Locale.ROOT);
-                if (t.contains("bigint") || t.contains("int")) {
-                    ps.setLong(idx, Long.parseLong(v));
-                    return;
-                } else if (t.contains("double") || t.contains("numeric") || t.contains("real")) {
-                    ps.setDouble(idx, Double.parseDouble(v));
-                    return;
-                } else if (t.contains("date") && !t.contains("timestamp")) {
-                    ps.setDate(idx, Date.valueOf(v)); // expects yyyy-MM-dd
-                    return;
-                } else if (t.contains("timestamp")) {
-                    // try parse commonly used timestamp formats acceptable by Timestamp.valueOf
-                    ps.setTimestamp(idx, Timestamp.valueOf(v));
-                    return;
-                }
-            }
-        } catch (Exception e) {
-            logger.debug("Type conversion failed for value='{}' to type='{}' - falling back to string", v, sqlType, e);
-        }
-        ps.setString(idx, v);
-    }
-
     private static final Pattern NON_ALNUM = Pattern.compile("[^A-Za-z0-9]");
     private static final Set<String> RESERVED = Set.of(
             "select", "insert", "update", "delete", "table", "date", "user", "order", "group", "value"
@@ -0,0 +1,100 @@
+package com.vedant.querybot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local, deterministic {@link Embedder}: a bag of canonical words plus their character trigrams,
+ * feature-hashed into a fixed number of signed buckets. No model, no network, same vector on every run.
+ *
+ * Question filler ("which", "show me", "the") is dropped and a small table of data-question
+ * synonyms is folded together, so "highest rated film" and "which movie has the best rating" land on
+ * the same words {max, rating, movie}. Trigrams keep typos and inflections close.
+ *
+ * Word order is ignored, so questions that swap roles ("customers with the most orders" / "orders with
+ * the most customers") get the same vector. Meant for tests and offline use only
+ * ({@code query.semantic-cache.embedder=hashing}); use {@code embedder=http} for a real model.
+ */
+@Component
+@ConditionalOnProperty(name = "query.semantic-cache.embedder", havingValue = "hashing")
+public class HashingEmbedder implements Embedder {
+
+    private static final float TRIGRAM_WEIGHT = 0.25f;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "the", "of", "in", "on", "for", "to", "by", "with", "and", "is", "are", "was", "were",
+            "be", "has", "have", "had", "do", "does", "did", "which", "what", "who", "whose", "that", "this",
+            "me", "my", "i", "we", "us", "our", "you", "please", "show", "give", "tell", "list", "find", "get",
+            "display", "return", "can", "could", "would", "there", "it", "its", "all");
+
+    private static final Map<String, String> SYNONYMS = Map.ofEntries(
+            Map.entry("film", "movie"), Map.entry("films", "movie"), Map.entry("movies", "movie"),
+            Map.entry("best", "max"), Map.entry("highest", "max"), Map.entry("top", "max"),
+            Map.entry("greatest", "max"), Map.entry("maximum", "max"), Map.entry("most", "max"),
+            Map.entry("largest", "max"), Map.entry("biggest", "max"),
+            Map.entry("lowest", "min"), Map.entry("worst", "min"), Map.entry("minimum", "min"),
+            Map.entry("least", "min"), Map.entry("smallest", "min"), Map.entry("fewest", "min"),
+            Map.entry("rated", "rating"), Map.entry("ratings", "rating"), Map.entry("rate", "rating"),
+            Map.entry("score", "rating"), Map.entry("scores", "rating"),
+            Map.entry("average", "avg"), Map.entry("mean", "avg"),
+            Map.entry("total", "sum"), Map.entry("number", "count"), Map.entry("many", "count"),
+            Map.entry("cost", "price"), Map.entry("costs", "price"), Map.entry("prices", "price"),
+            Map.entry("priciest", "max price"), Map.entry("cheapest", "min price"), Map.entry("expensive", "price"),
+            Map.entry("customers", "customer"), Map.entry("products", "product"), Map.entry("orders", "order"),
+            Map.entry("sales", "sale"), Map.entry("rows", "row"), Map.entry("records", "row"));
+
+    private final int dimensions;
+
+    public HashingEmbedder(@Value("${query.semantic-cache.dimensions:512}") int dimensions) {
+        this.dimensions = Math.max(16, dimensions);
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] v = new float[dimensions];
+        if (text == null) return v;
+        String s = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            while (i < s.length() && !Character.isLetterOrDigit(s.charAt(i))) i++;
+            int start = i;
+            while (i < s.length() && Character.isLetterOrDigit(s.charAt(i))) i++;
+            if (i == start) break;
+            String word = s.substring(start, i);
+            if (STOPWORDS.contains(word)) continue;
+            for (String canonical : SYNONYMS.getOrDefault(word, word).split(" ")) add(v, canonical);
+        }
+        return Embedder.normalize(v);
+    }
+
+    private void add(float[] v, String word) {
+        addFeature(v, word, 0, word.length(), 1f);
+        // trigrams of "^word$" so short words still contribute
+        String padded = "^" + word + "$";
+        for (int k = 0; k + 3 <= padded.length(); k++) addFeature(v, padded, k, k + 3, TRIGRAM_WEIGHT);
+    }
+
+    // Signed feature hashing: the sign bit cancels collisions out on average instead of piling them up
+    private void addFeature(float[] v, String s, int from, int to, float weight) {
+        long h = 0xcbf29ce484222325L ^ (to - from);
+        for (int k = from; k < to; k++) {
+            h ^= s.charAt(k);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        int bucket = (int) Math.floorMod(h, (long) dimensions);
+        v[bucket] += (h >>> 63) == 0 ? weight : -weight;
+    }
+}
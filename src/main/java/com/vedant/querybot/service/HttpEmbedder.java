@@ -0,0 +1,104 @@
+package com.vedant.querybot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link Embedder} backed by an OpenAI-compatible {@code /embeddings} endpoint
+ * ({@code {"model": ..., "input": text}} -> {@code data[0].embedding}).
+ * Enabled with {@code query.semantic-cache.embedder=http}; failures propagate and count as cache misses.
+ * Requests go out with {@code sendAsync}, so a question waiting for its embedding holds no thread.
+ */
+@Component
+@ConditionalOnProperty(name = "query.semantic-cache.embedder", havingValue = "http")
+public class HttpEmbedder implements Embedder {
+
+    private final String url;
+    private final String model;
+    private final String apiKey;
+    private final int dimensions;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public HttpEmbedder(
+            @Value("${query.semantic-cache.http.url:https://api.openai.com/v1/embeddings}") String url,
+            @Value("${query.semantic-cache.http.model:text-embedding-3-small}") String model,
+            @Value("${query.semantic-cache.http.api-key:${llm.api.key:}}") String apiKey,
+            @Value("${query.semantic-cache.dimensions:512}") int dimensions,
+            @Value("${query.semantic-cache.http.timeout-ms:2000}") long timeoutMs
+    ) {
+        this.url = url;
+        this.model = model;
+        this.apiKey = apiKey;
+        this.dimensions = dimensions;
+        this.timeout = Duration.ofMillis(Math.max(100, timeoutMs));
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        try {
+            return embedAsync(text).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Embedding request failed", ex.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<float[]> embedAsync(String text) {
+        String body;
+        try {
+            // text-embedding-3 models can shorten their output to the configured size
+            body = mapper.writeValueAsString(Map.of("model", model, "input", text, "dimensions", dimensions));
+        } catch (JsonProcessingException ex) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Cannot encode embedding request", ex));
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(timeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(this::parse);
+    }
+
+    private float[] parse(HttpResponse<String> response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IllegalStateException("Embedding endpoint returned " + response.statusCode());
+        }
+        JsonNode embedding;
+        try {
+            embedding = mapper.readTree(response.body()).path("data").path(0).path("embedding");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Malformed embedding response", ex);
+        }
+        if (embedding.size() != dimensions) {
+            throw new IllegalStateException("Expected " + dimensions + " dimensions, got " + embedding.size());
+        }
+        float[] v = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) v[i] = (float) embedding.get(i).asDouble();
+        return Embedder.normalize(v);
+    }
+}
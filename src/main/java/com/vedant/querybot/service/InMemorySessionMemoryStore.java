@@ -0,0 +1,90 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SessionMemoryStore} held in the JVM. Sessions live in a Caffeine cache bounded by
+ * {@code query.session-memory.max-sessions} and expire after {@code idle-ttl-minutes} without
+ * reads or writes; HttpSession destruction evicts them immediately (see {@link SessionMemoryCleanup}).
+ *
+ * Each session's messages are an immutable list replaced on append, so readers take a consistent
+ * snapshot without locking. Gauges report sessions, messages and an estimate of the retained bytes;
+ * evictions are exported as cache metrics named "session_memory".
+ */
+@Component
+@ConditionalOnProperty(name = "query.session-memory.store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionMemoryStore implements SessionMemoryStore {
+
+    // object headers and references per message, on top of the characters
+    private static final long MESSAGE_OVERHEAD_BYTES = 64;
+
+    private final int maxMessages;
+    private final Cache<String, List<Message>> sessions;
+
+    public InMemorySessionMemoryStore(
+            MeterRegistry meterRegistry,
+            @Value("${query.session-memory.max-sessions:10000}") long maxSessions,
+            @Value("${query.session-memory.idle-ttl-minutes:30}") long idleTtlMinutes,
+            @Value("${query.session-memory.max-messages:10}") int maxMessages
+    ) {
+        this.maxMessages = Math.max(1, maxMessages);
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxSessions))
+                .expireAfterAccess(Duration.ofMinutes(Math.max(1, idleTtlMinutes)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, "session_memory");
+        Gauge.builder("query.session_memory.sessions", sessions, Cache::estimatedSize).register(meterRegistry);
+        Gauge.builder("query.session_memory.messages", this, s -> s.totals()[0]).register(meterRegistry);
+        Gauge.builder("query.session_memory.bytes", this, s -> s.totals()[1]).baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    public void append(String sessionId, String role, String content) {
+        if (sessionId == null) return;
+        Message message = new Message(role, content == null ? "" : content);
+        sessions.asMap().compute(sessionId, (k, old) -> {
+            int keep = old == null ? 0 : Math.min(old.size(), maxMessages - 1);
+            List<Message> next = new ArrayList<>(keep + 1);
+            if (old != null) next.addAll(old.subList(old.size() - keep, old.size()));
+            next.add(message);
+            return List.copyOf(next);
+        });
+    }
+
+    @Override
+    public List<Message> messages(String sessionId) {
+        if (sessionId == null) return List.of();
+        List<Message> messages = sessions.getIfPresent(sessionId);
+        return messages == null ? List.of() : messages;
+    }
+
+    @Override
+    public void evict(String sessionId) {
+        if (sessionId != null) sessions.invalidate(sessionId);
+    }
+
+    // {messages, estimated bytes} over all sessions; computed on scrape, O(sessions * max-messages)
+    private double[] totals() {
+        long messages = 0;
+        long bytes = 0;
+        for (List<Message> list : sessions.asMap().values()) {
+            messages += list.size();
+            for (Message m : list) {
+                bytes += MESSAGE_OVERHEAD_BYTES + 2L * (m.role().length() + m.content().length());
+            }
+        }
+        return new double[] {messages, bytes};
+    }
+}
@@ -0,0 +1,116 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vedant.querybot.entity.ConversationMessage;
+import com.vedant.querybot.repository.ConversationMessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link SessionMemoryStore} in the shared database, so any replica can continue a conversation
+ * (enable with {@code query.session-memory.store=jdbc}). Messages are appended to
+ * {@code conversation_message} and the last N are read newest-first through the (session_id, id) index.
+ *
+ * A small local read-through cache absorbs the repeated reads of one request; its TTL
+ * ({@code query.session-memory.jdbc.cache-ttl-seconds}) bounds how stale another replica's view can be.
+ * Appends on this node update the cached list in place. Sessions with no message newer than the
+ * idle TTL are purged whole at most once a minute, piggybacking on appends.
+ */
+@Component
+@ConditionalOnProperty(name = "query.session-memory.store", havingValue = "jdbc")
+public class JdbcSessionMemoryStore implements SessionMemoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcSessionMemoryStore.class);
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final ConversationMessageRepository repository;
+    private final int maxMessages;
+    private final Duration retention;
+    private final Cache<String, List<Message>> local;
+    private final AtomicLong lastPurge = new AtomicLong(System.currentTimeMillis());
+
+    public JdbcSessionMemoryStore(
+            ConversationMessageRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${query.session-memory.max-messages:10}") int maxMessages,
+            @Value("${query.session-memory.idle-ttl-minutes:30}") long idleTtlMinutes,
+            @Value("${query.session-memory.jdbc.cache-ttl-seconds:2}") long cacheTtlSeconds,
+            @Value("${query.session-memory.jdbc.cache-max-sessions:1000}") long cacheMaxSessions
+    ) {
+        this.repository = repository;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.retention = Duration.ofMinutes(Math.max(1, idleTtlMinutes));
+        this.local = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cacheMaxSessions))
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, cacheTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "session_memory_local");
+    }
+
+    @Override
+    public void append(String sessionId, String role, String content) {
+        if (sessionId == null) return;
+        ConversationMessage saved = repository.save(new ConversationMessage(sessionId, role, content == null ? "" : content));
+        Message message = new Message(saved.getRole(), saved.getContent());
+        // keep this node's view current; other nodes catch up when their entry expires
+        local.asMap().computeIfPresent(sessionId, (k, old) -> {
+            int keep = Math.min(old.size(), maxMessages - 1);
+            List<Message> next = new ArrayList<>(old.subList(old.size() - keep, old.size()));
+            next.add(message);
+            return List.copyOf(next);
+        });
+        purgeIfDue();
+    }
+
+    @Override
+    public List<Message> messages(String sessionId) {
+        if (sessionId == null) return List.of();
+        return local.get(sessionId, this::load);
+    }
+
+    @Override
+    public void evict(String sessionId) {
+        if (sessionId == null) return;
+        local.invalidate(sessionId);
+        repository.deleteSession(sessionId);
+    }
+
+    private List<Message> load(String sessionId) {
+        List<ConversationMessage> newest = repository.findBySessionIdOrderByIdDesc(sessionId, Limit.of(maxMessages));
+        List<Message> messages = new ArrayList<>(newest.size());
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            messages.add(new Message(newest.get(i).getRole(), newest.get(i).getContent()));
+        }
+        return List.copyOf(messages);
+    }
+
+    private void purgeIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_MS || !lastPurge.compareAndSet(last, now)) return;
+        purgeIdleSessions();
+    }
+
+    void purgeIdleSessions() {
+        try {
+            int removed = repository.deleteSessionsIdleSince(Instant.now().minus(retention));
+            if (removed > 0) log.info("Purged {} messages of idle conversations", removed);
+        } catch (Exception ex) {
+            log.warn("Failed to purge idle conversations", ex);
+        }
+    }
+}
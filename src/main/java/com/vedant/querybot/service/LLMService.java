@@ -2,6 +2,8 @@ package com.vedant.querybot.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vedant.querybot.util.TabularResult;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,7 +13,17 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class LLMService {
@@ -20,28 +32,58 @@ public class LLMService {
 
     private final String apiKey;
     private final String apiUrl;
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final Duration requestTimeout;
+    private final Duration streamTimeout;
+    private final ExecutorService clientExecutor;
+    private final HttpClient httpClient;
     private final ObjectMapper mapper = new ObjectMapper();
 
+    // Calls are sent with sendAsync: no thread waits on an in-flight request, the small client pool
+    // only runs connection I/O and the response parsing, so it can carry many concurrent questions
     public LLMService(
             @Value("${llm.api.key:}") String apiKey,
-            @Value("${llm.api.url:https://openrouter.ai/api/v1/chat/completions}") String apiUrl
+            @Value("${llm.api.url:https://openrouter.ai/api/v1/chat/completions}") String apiUrl,
+            @Value("${llm.client.threads:2}") int clientThreads,
+            @Value("${llm.client.timeout-seconds:60}") long timeoutSeconds,
+            @Value("${llm.client.stream-timeout-seconds:120}") long streamTimeoutSeconds
     ) {
         this.apiKey = apiKey;
         this.apiUrl = apiUrl;
+        this.requestTimeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
+        this.streamTimeout = Duration.ofSeconds(Math.max(1, streamTimeoutSeconds));
+        AtomicInteger seq = new AtomicInteger();
+        this.clientExecutor = Executors.newFixedThreadPool(Math.max(1, clientThreads), r -> {
+            Thread t = new Thread(r, "llm-client-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clientExecutor.shutdownNow();
     }
 
     /* ============================================================
        NATURAL LANGUAGE → SQL
        ============================================================ */
-    // Modified to accept availableColumns list and use OpenRouter model + headers
-    public String generateSqlFromNl(String nlWithContext, String targetTable, List<String> availableColumns) {
+    // fallback is true when the SQL did not come from the model (no key, HTTP/parse failure, blocked SELECT *)
+    public record SqlGeneration(String sql, boolean fallback) {}
+
+    // Modified to accept availableColumns list and use OpenRouter model + headers.
+    // Non-blocking: the request is sent with sendAsync and the future completes on the client executor.
+    // Never completes exceptionally; failures yield the fallback SQL.
+    public CompletableFuture<SqlGeneration> generateSqlAsync(String nlWithContext, String targetTable, List<String> availableColumns) {
 
         log.info("=== LLM SQL REQUEST CONTEXT ===\n{}\n===============================", nlWithContext);
 
         if (apiKey == null || apiKey.isBlank()) {
             log.warn("API KEY missing — using fallback SQL.");
-            return fallbackSql(targetTable);
+            return CompletableFuture.completedFuture(new SqlGeneration(fallbackSql(targetTable), true));
         }
 
         try {
@@ -111,23 +153,26 @@ public class LLMService {
 
             String body = mapper.writeValueAsString(payload);
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(apiUrl))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .header("HTTP-Referer", "http://localhost")
-                    .header("X-Title", "QueryBot")
-                    .POST(HttpRequest.BodyPublishers.ofString(body))
-                    .build();
+            return httpClient.sendAsync(request(body), HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> parseSql(response, nlWithContext, targetTable, availableColumns))
+                    .exceptionally(ex -> {
+                        log.error("LLM SQL generation failed", ex);
+                        return new SqlGeneration(fallbackSql(targetTable), true);
+                    });
 
-            HttpResponse<String> response =
-                    httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (Exception ex) {
+            log.error("LLM SQL generation failed", ex);
+            return CompletableFuture.completedFuture(new SqlGeneration(fallbackSql(targetTable), true));
+        }
+    }
 
+    private SqlGeneration parseSql(HttpResponse<String> response, String nlWithContext, String targetTable, List<String> availableColumns) {
+        try {
             log.info("=== LLM RAW RESPONSE ===\n{}\n=========================", response.body());
 
             if (response.statusCode() < 200 || response.statusCode() >= 300) {
                 log.error("LLM returned non-200 status: {}", response.statusCode());
-                return fallbackSql(targetTable);
+                return new SqlGeneration(fallbackSql(targetTable), true);
             }
 
             /* Parse OpenRouter response structure (similar to OpenAI) */
@@ -137,7 +182,7 @@ public class LLMService {
 
             if (contentNode == null || contentNode.isMissingNode()) {
                 log.error("LLM response missing 'message.content'");
-                return fallbackSql(targetTable);
+                return new SqlGeneration(fallbackSql(targetTable), true);
             }
 
             String sql = contentNode.asText().trim();
@@ -161,14 +206,15 @@ public class LLMService {
                 String fallbackCol = availableColumns.stream()
                         .filter(c -> c.toLowerCase().matches(".*(amount|price|cost|value|total|quantity|qty).*"))
                         .findFirst().orElse("amount");
-                return "SELECT " + fallbackCol + " FROM " + targetTable + " ORDER BY " + fallbackCol + " DESC LIMIT 1";
+                return new SqlGeneration(
+                        "SELECT " + fallbackCol + " FROM " + targetTable + " ORDER BY " + fallbackCol + " DESC LIMIT 1", true);
             }
 
             /* BLOCK SELECT * unless explicitly asked */
             if (!nlWithContext.toLowerCase().contains("all rows") &&
                     sql.matches("(?i).*select\\s+\\*.*")) {
                 log.warn("Blocked SELECT * (user did not ask for full table)");
-                return fallbackSql(targetTable);
+                return new SqlGeneration(fallbackSql(targetTable), true);
             }
 
             // Ensure only one SELECT statement
@@ -180,14 +226,26 @@ public class LLMService {
                 sql = sql.substring(0, sem).trim();
             }
 
-            return sql;
+            return new SqlGeneration(sql, false);
 
         } catch (Exception ex) {
-            log.error("LLM SQL generation failed", ex);
-            return fallbackSql(targetTable);
+            log.error("LLM SQL response could not be parsed", ex);
+            return new SqlGeneration(fallbackSql(targetTable), true);
         }
     }
 
+    private HttpRequest request(String body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .header("HTTP-Referer", "http://localhost")
+                .header("X-Title", "QueryBot")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
     private String fallbackSql(String table) {
         return "SELECT * FROM " + table + " LIMIT 50";
     }
@@ -196,38 +254,53 @@ public class LLMService {
     /* ============================================================
        SQL RESULT ROWS → Natural-language summary
        ============================================================ */
-    // Modified to accept conversationContext to provide follow-up aware summaries
-    public String summarizeResult(String originalQuestion, String tableName, List<Map<String, Object>> rows, String conversationContext, String factSnippet, boolean allowFreeform) {
+    // conversationContext makes summaries follow-up aware.
+    // Non-blocking; completes with null when the model call fails (never exceptionally)
+    public CompletableFuture<String> summarizeResultAsync(String originalQuestion, String tableName, TabularResult rows, String conversationContext, String factSnippet, boolean allowFreeform) {
+        return summarize(originalQuestion, tableName, rows, conversationContext, factSnippet, allowFreeform, null);
+    }
+
+    // Streaming variant (stream=true): onToken receives each content delta as it arrives, the future
+    // completes with the whole summary (null on failure, the partial text after a malformed chunk).
+    // The whole stream is bounded by llm.client.stream-timeout-seconds (null when exceeded); an exception
+    // thrown by onToken stops the stream and fails the future. Without an API key the fallback text is one token.
+    public CompletableFuture<String> streamSummaryAsync(String originalQuestion, String tableName, TabularResult rows, String conversationContext, String factSnippet, boolean allowFreeform, Consumer<String> onToken) {
+        return summarize(originalQuestion, tableName, rows, conversationContext, factSnippet, allowFreeform, Objects.requireNonNull(onToken));
+    }
+
+    // "Row i: col=value, col=value" per row, read from the column vectors without building row maps
+    static String promptRows(TabularResult rows) {
+        if (rows == null || rows.isEmpty()) return "[no rows returned]";
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < rows.rowCount(); r++) {
+            sb.append("Row ").append(r + 1).append(": ");
+            for (int c = 0; c < rows.columnCount(); c++) {
+                if (c > 0) sb.append(", ");
+                sb.append(rows.column(c)).append('=');
+                rows.appendValue(sb, r, c);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private CompletableFuture<String> summarize(String originalQuestion, String tableName, TabularResult rows, String conversationContext, String factSnippet, boolean allowFreeform, Consumer<String> onToken) {
 
         try {
             if (apiKey == null || apiKey.isBlank()) {
-                if (rows.isEmpty()) return "No rows found.";
-                return "Found " + rows.size() + " matching rows.";
+                String text = rows.isEmpty() ? "No rows found." : "Found " + rows.rowCount() + " matching rows.";
+                if (onToken != null) onToken.accept(text);
+                return CompletableFuture.completedFuture(text);
             }
 
             // Build readable rows text for LLM (avoid relying on JSON which can confuse the model)
-            String rowsText = "";
-            if (rows != null && !rows.isEmpty()) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < rows.size(); i++) {
-                    Map<String, Object> row = rows.get(i);
-                    sb.append("Row ").append(i + 1).append(": ");
-                    List<String> parts = new ArrayList<>();
-                    for (Map.Entry<String, Object> e : row.entrySet()) {
-                        parts.add(e.getKey() + "=" + String.valueOf(e.getValue()));
-                    }
-                    sb.append(String.join(", ", parts)).append("\n");
-                }
-                rowsText = sb.toString();
-            } else {
-                rowsText = "[no rows returned]";
-            }
+            String rowsText = promptRows(rows);
 
              Map<String, Object> payload = new HashMap<>();
              payload.put("model", "openai/gpt-4o-mini");
 
              String system;
-             String userContent = "Conversation history:\n" + conversationContext + "\n\nUser question: " + originalQuestion + "\n\nTable: " + tableName + "\n\nRows returned (" + (rows == null ? 0 : rows.size()) + "):\n" + rowsText + "\nFacts: " + (factSnippet == null ? "" : factSnippet) + "\n";
+             String userContent = "Conversation history:\n" + conversationContext + "\n\nUser question: " + originalQuestion + "\n\nTable: " + tableName + "\n\nRows returned (" + (rows == null ? 0 : rows.rowCount()) + "):\n" + rowsText + "\nFacts: " + (factSnippet == null ? "" : factSnippet) + "\n";
 
              if (allowFreeform) {
                  system = "You are a helpful data analyst who can talk conversationally. You should reference the provided Rows and Facts when relevant, but you MAY answer in a natural, opinionated style. Do NOT invent facts not present in Rows/Facts. CRITICAL: Do NOT ask the user questions or ask them to provide more information. Just analyze and summarize the data you have been provided. Keep answers focused on insights from the data.";
@@ -246,34 +319,145 @@ public class LLMService {
 
              payload.put("messages", messages);
              payload.put("max_tokens", 300);
+             if (onToken != null) payload.put("stream", true);
 
              String body = mapper.writeValueAsString(payload);
 
-             HttpRequest req = HttpRequest.newBuilder()
-                     .uri(URI.create(apiUrl))
-                     .header("Authorization", "Bearer " + apiKey)
-                     .header("Content-Type", "application/json")
-                     .header("HTTP-Referer", "http://localhost")
-                     .header("X-Title", "QueryBot")
-                     .POST(HttpRequest.BodyPublishers.ofString(body))
-                     .build();
-
-             HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
+             if (onToken != null) {
+                 SummaryStream stream = new SummaryStream(onToken);
+                 // the response future only completes with the body, which never happens once the
+                 // subscription is cancelled; the stream completes its own future instead
+                 httpClient.sendAsync(request(body), info -> {
+                             stream.status = info.statusCode();
+                             return HttpResponse.BodyHandlers.fromLineSubscriber(stream).apply(info);
+                         })
+                         .whenComplete((resp, ex) -> {
+                             if (ex != null) stream.fail(ex);
+                         });
+                 return stream.result()
+                         .orTimeout(streamTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                         .exceptionally(ex -> {
+                             Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                             if (!(cause instanceof TimeoutException)) throw new CompletionException(cause);
+                             log.error("LLM summary stream exceeded {} s", streamTimeout.toSeconds());
+                             stream.cancel();
+                             return null;
+                         });
+             }
 
-             log.info("=== LLM SUMMARY RAW RESPONSE ===\n{}\n===============================", resp.body());
+             return httpClient.sendAsync(request(body), HttpResponse.BodyHandlers.ofString())
+                     .thenApply(this::parseSummary)
+                     .exceptionally(ex -> {
+                         log.error("LLM summary generation failed", ex);
+                         return null;
+                     });
 
-             if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-                 return null;
-             }
+        } catch (Exception e) {
+            log.error("LLM summary generation failed", e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 
-             JsonNode root = mapper.readTree(resp.body());
-             JsonNode contentNode = root.path("choices").get(0).path("message").path("content");
+    private String parseSummary(HttpResponse<String> resp) {
+        log.info("=== LLM SUMMARY RAW RESPONSE ===\n{}\n===============================", resp.body());
 
-             return contentNode.asText().trim();
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            return null;
+        }
 
+        try {
+            JsonNode root = mapper.readTree(resp.body());
+            JsonNode contentNode = root.path("choices").get(0).path("message").path("content");
+            return contentNode.asText().trim();
         } catch (Exception e) {
-            log.error("LLM summary generation failed", e);
+            log.error("LLM summary response could not be parsed", e);
             return null;
         }
     }
+
+    /**
+     * Consumes a chat-completions event stream line by line ({@code data: {...}} chunks, ending with
+     * {@code data: [DONE]}), forwarding each {@code choices[0].delta.content} to the token callback.
+     * Runs on the HTTP client threads; nothing blocks waiting for the next chunk. {@link #result} completes
+     * with the text when the stream ends, with null on an error status or transport failure, with the text
+     * so far after a malformed chunk, and exceptionally when the token callback throws.
+     */
+    private final class SummaryStream implements Flow.Subscriber<String> {
+        private final Consumer<String> onToken;
+        private final StringBuilder text = new StringBuilder();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+        volatile int status;
+
+        SummaryStream(Consumer<String> onToken) {
+            this.onToken = onToken;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (result.isDone()) subscription.cancel();
+            else subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (result.isDone() || !line.startsWith("data:")) return;
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || data.equals("[DONE]")) return;
+            String token;
+            try {
+                JsonNode content = mapper.readTree(data).path("choices").path(0).path("delta").path("content");
+                if (!content.isTextual() || content.asText().isEmpty()) return;
+                token = content.asText();
+            } catch (Exception ex) {
+                log.warn("Stopping summary stream at a malformed chunk: {}", ex.toString());
+                cancel();
+                result.complete(text());
+                return;
+            }
+            text.append(token);
+            try {
+                onToken.accept(token);
+            } catch (RuntimeException ex) {
+                // the consumer went away (client disconnected): stop reading and fail the summary
+                cancel();
+                result.completeExceptionally(ex);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (status < 200 || status >= 300) {
+                log.error("LLM summary stream returned status {}", status);
+                result.complete(null);
+                return;
+            }
+            result.complete(text());
+        }
+
+        void fail(Throwable ex) {
+            if (result.isDone()) return;
+            log.error("LLM summary stream failed", ex);
+            result.complete(null);
+        }
+
+        void cancel() {
+            Flow.Subscription s = subscription;
+            if (s != null) s.cancel();
+        }
+
+        CompletableFuture<String> result() {
+            return result;
+        }
+
+        String text() {
+            return text.toString().trim();
+        }
+    }
 }
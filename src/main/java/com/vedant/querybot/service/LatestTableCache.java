@@ -0,0 +1,110 @@
+package com.vedant.querybot.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import com.vedant.querybot.repository.UploadedTableMetadataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process cache of the most recently uploaded table and its parsed column map.
+ * Loaded with a single indexed ORDER BY id DESC LIMIT 1 lookup, replaced as soon as FileService
+ * publishes a {@link TableUploadedEvent} for a newer (higher id) table, and reloaded after a TTL so uploads made through
+ * another application instance are picked up too. Dropping the cached table clears the entry.
+ */
+@Component
+public class LatestTableCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LatestTableCache.class);
+
+    // columns is original header -> column name in upload order; null if columnsJson could not be parsed
+    public record LatestTable(UploadedTableMetadata metadata, Map<String, String> columns) {
+        public String tableName() {
+            return metadata.getTableName();
+        }
+    }
+
+    private record Entry(Optional<LatestTable> value, long loadedAt) {}
+
+    private final UploadedTableMetadataRepository metadataRepository;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long ttlNanos;
+    private volatile Entry entry;
+
+    public LatestTableCache(
+            UploadedTableMetadataRepository metadataRepository,
+            @Value("${query.latest-table-cache.ttl-seconds:30}") long ttlSeconds
+    ) {
+        this.metadataRepository = metadataRepository;
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+    }
+
+    public Optional<LatestTable> latest() {
+        Entry e = entry;
+        if (e != null && System.nanoTime() - e.loadedAt() < ttlNanos) return e.value();
+        synchronized (this) {
+            e = entry;
+            if (e == null || System.nanoTime() - e.loadedAt() >= ttlNanos) {
+                e = new Entry(metadataRepository.findTopByOrderByIdDesc().map(this::toLatest), System.nanoTime());
+                entry = e;
+            }
+            return e.value();
+        }
+    }
+
+    // Uploads run on several workers, so events can arrive out of order: only a newer id replaces the entry
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        UploadedTableMetadata meta = event.metadata();
+        synchronized (this) {
+            Entry e = entry;
+            // nothing cached: the next latest() reads the newest row from the repository
+            if (e == null) return;
+            Long cached = e.value().map(t -> t.metadata().getId()).orElse(null);
+            if (cached != null && meta.getId() != null && meta.getId() <= cached) {
+                log.debug("Ignoring upload event for {} (id {}), newer table id {} is cached", meta.getTableName(), meta.getId(), cached);
+                return;
+            }
+            entry = new Entry(Optional.of(toLatest(meta)), System.nanoTime());
+        }
+    }
+
+    // A dropped table (e.g. a failed upload's) must not be served as the latest until the TTL runs out
+    @EventListener
+    public void onTableDropped(TableDroppedEvent event) {
+        synchronized (this) {
+            Entry e = entry;
+            if (e != null && e.value().map(t -> t.tableName().equals(event.tableName())).orElse(false)) {
+                entry = null;
+            }
+        }
+    }
+
+    public void invalidate() {
+        synchronized (this) {
+            entry = null;
+        }
+    }
+
+    private LatestTable toLatest(UploadedTableMetadata meta) {
+        Map<String, String> columns = null;
+        try {
+            if (meta.getColumnsJson() != null) {
+                columns = Collections.unmodifiableMap(mapper.readValue(meta.getColumnsJson(),
+                        new TypeReference<LinkedHashMap<String, String>>() {}));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to parse columns metadata for {}", meta.getTableName(), e);
+        }
+        return new LatestTable(meta, columns);
+    }
+}
@@ -0,0 +1,89 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Exact-match cache of SQL the model generated for a question, placed in front of
+ * {@link LLMService#generateSql}. A hit skips the LLM round trip entirely.
+ *
+ * The key is the normalized question, the {@link TableSchema#fingerprint()} and the part of the
+ * conversation that can change the answer to a follow-up (previous user turn and latest FACTS).
+ * Only SQL that came from the model and executed successfully is stored. Entries expire after a TTL,
+ * are evicted by total weight (characters), and the whole cache is dropped when a table is uploaded.
+ * Hit/miss/eviction counts are published to Micrometer as cache metrics named "nl_sql".
+ */
+@Component
+public class NlSqlCache {
+
+    public record Key(String question, String schemaFingerprint, String context) {}
+
+    private final boolean enabled;
+    private final Cache<Key, String> cache;
+
+    public NlSqlCache(
+            MeterRegistry meterRegistry,
+            @Value("${query.sql-cache.enabled:true}") boolean enabled,
+            @Value("${query.sql-cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${query.sql-cache.max-weight:2000000}") long maxWeight
+    ) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, ttlMinutes)))
+                .maximumWeight(Math.max(1, maxWeight))
+                .<Key, String>weigher((k, sql) -> k.question().length() + k.context().length() + sql.length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "nl_sql");
+    }
+
+    // previousUserTurn / latestFacts may be null when the session has none
+    public static Key key(String question, TableSchema schema, String previousUserTurn, String latestFacts) {
+        String context = normalize(previousUserTurn) + "\n" + (latestFacts == null ? "" : latestFacts.trim());
+        return new Key(normalize(question), schema.fingerprint(), context);
+    }
+
+    public Optional<String> get(Key key) {
+        if (!enabled) return Optional.empty();
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(Key key, String sql) {
+        if (enabled) cache.put(key, sql);
+    }
+
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        cache.invalidateAll();
+    }
+
+    // Lower-case, collapse whitespace and drop trailing punctuation: "Top 5  movies?" == "top 5 movies"
+    static String normalize(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            sb.append(c);
+        }
+        int end = sb.length();
+        while (end > 0 && ".?!".indexOf(sb.charAt(end - 1)) >= 0) end--;
+        sb.setLength(end);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
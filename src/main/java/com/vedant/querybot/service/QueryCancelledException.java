@@ -0,0 +1,13 @@
+package com.vedant.querybot.service;
+
+/**
+ * A question was cancelled (cancel endpoint or client disconnect) before it completed.
+ */
+public class QueryCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryCancelledException(String queryId) {
+        super("Query cancelled: " + queryId);
+    }
+}
@@ -0,0 +1,136 @@
+package com.vedant.querybot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+
+/**
+ * Pre-execution cost check for generated SQL, after validation and before {@link QueryExecutor}.
+ *
+ * Runs {@code EXPLAIN (FORMAT JSON)} (plan only, nothing executes) on the statement exactly as the
+ * executor will run it, i.e. already wrapped in the row-cap LIMIT. That wrapper is the rewrite for
+ * queries that merely return many rows: a plain scan under a LIMIT is cheap and passes, while work the
+ * LIMIT cannot cut short (large sorts, aggregates over big tables, cross joins) keeps its cost. Plans whose
+ * total cost exceeds {@code query.cost-guard.max-cost} are rejected. Planning itself is bounded by a JDBC
+ * query timeout ({@code query.cost-guard.timeout-ms}, whole seconds), since the EXPLAIN runs outside the
+ * executor's transaction and its {@code statement_timeout}.
+ *
+ * Verdicts are cached per SQL text (Caffeine metrics "cost_guard") and dropped when a table is uploaded,
+ * since new data changes the estimates. The planner's row estimate for the unwrapped query is kept with
+ * the verdict so the executor does not need a second EXPLAIN to report totalRowsEstimate.
+ */
+@Component
+public class QueryCostGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCostGuard.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // estimatedRows is the planner's row count for the query without the cap (null if the plan has none)
+    public record Verdict(boolean allowed, double cost, Long estimatedRows) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final double maxCost;
+    private final long timeoutMs;
+    private final Cache<String, Verdict> verdicts;
+    private final Counter allowed;
+    private final Counter rejected;
+
+    public QueryCostGuard(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${query.cost-guard.enabled:true}") boolean enabled,
+            @Value("${query.cost-guard.max-cost:1000000}") double maxCost,
+            @Value("${query.cost-guard.cache-max-entries:10000}") long cacheMaxEntries,
+            @Value("${query.cost-guard.cache-ttl-minutes:10}") long cacheTtlMinutes,
+            @Value("${query.cost-guard.timeout-ms:5000}") long timeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxCost = Math.max(1, maxCost);
+        this.timeoutMs = Math.max(1, timeoutMs);
+        this.verdicts = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cacheMaxEntries))
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, cacheTtlMinutes)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verdicts, "cost_guard");
+        this.allowed = Counter.builder("query.cost_guard").tag("verdict", "allowed").register(meterRegistry);
+        this.rejected = Counter.builder("query.cost_guard").tag("verdict", "rejected").register(meterRegistry);
+    }
+
+    /**
+     * Check the statement the executor will run ({@link QueryExecutor#cappedSql}). Returns the verdict when
+     * allowed (or null when the guard is disabled); throws IllegalArgumentException when the plan is too
+     * expensive, QueryTimeoutException when planning outlasts the timeout. Planning errors (e.g. invalid SQL)
+     * propagate like execution errors would.
+     */
+    public Verdict check(String cappedSql) {
+        if (!enabled) return null;
+        Verdict verdict = verdicts.get(cappedSql, this::explain);
+        if (!verdict.allowed()) {
+            rejected.increment();
+            throw new IllegalArgumentException(String.format(
+                    "Query rejected: estimated cost %.0f exceeds the limit of %.0f. Try narrowing the question (filters, fewer groups).",
+                    verdict.cost(), maxCost));
+        }
+        allowed.increment();
+        return verdict;
+    }
+
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        verdicts.invalidateAll();
+    }
+
+    private Verdict explain(String sql) {
+        String json;
+        try {
+            json = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("EXPLAIN (FORMAT JSON) " + sql);
+                // the driver cancels the statement (SQLSTATE 57014) once this many seconds have passed
+                ps.setQueryTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+                return ps;
+            }, rs -> rs.next() ? rs.getString(1) : null);
+        } catch (DataAccessException ex) {
+            if (QueryExecutor.isStatementCancelled(ex)) {
+                throw new QueryTimeoutException("Query could not be planned within " + timeoutMs + " ms", ex);
+            }
+            throw ex;
+        }
+        Verdict verdict = parse(json, maxCost);
+        if (!verdict.allowed()) log.info("Cost guard rejected plan with cost {} for: {}", verdict.cost(), sql);
+        return verdict;
+    }
+
+    // Top node's total cost; rows from the node under the row-cap Limit when there is one
+    static Verdict parse(String json, double maxCost) {
+        try {
+            JsonNode plan = MAPPER.readTree(json).path(0).path("Plan");
+            double cost = plan.path("Total Cost").asDouble(0);
+            JsonNode rowsNode = "Limit".equals(plan.path("Node Type").asText())
+                    ? plan.path("Plans").path(0).path("Plan Rows")
+                    : plan.path("Plan Rows");
+            Long rows = rowsNode.isNumber() ? rowsNode.asLong() : null;
+            return new Verdict(cost <= maxCost, cost, rows);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unreadable EXPLAIN output", ex);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.vedant.querybot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vedant.querybot.util.TabularResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Runs validated, model-generated SELECTs with hard limits on what reaches the heap.
+ *
+ * The statement is wrapped as {@code SELECT * FROM (sql) LIMIT max-rows + 1} so the database stops
+ * producing rows early, and read in a read-only transaction (PostgreSQL only streams with a fetch size
+ * when autocommit is off) through a forward-only cursor straight into a columnar {@link TabularResult}.
+ * Reading stops at max-rows or once the estimated size of the read rows passes max-bytes; the result
+ * is then flagged truncated and the total is estimated from the planner (EXPLAIN) instead of being counted.
+ *
+ * Every statement of the transaction runs under {@code SET LOCAL statement_timeout} (query.result.timeout-ms),
+ * so a runaway query is aborted by the server and its pooled connection released. The running statement is
+ * attached to the question's {@link RunningQueries.Handle} so it can also be cancelled from outside.
+ */
+@Service
+public class QueryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryExecutor.class);
+    // rows per onBatch call
+    static final int BATCH_ROWS = 200;
+
+    /**
+     * Rows read within the budgets. totalRowsEstimate is exact (rows.rowCount()) when not truncated,
+     * the planner's estimate when truncated, or null if the plan could not be read.
+     */
+    public record Result(TabularResult rows, boolean truncated, Long totalRowsEstimate) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int maxRows;
+    private final long maxBytes;
+    private final int fetchSize;
+    private final long timeoutMs;
+
+    public QueryExecutor(
+            JdbcTemplate jdbcTemplate,
+            @Value("${query.result.max-rows:1000}") int maxRows,
+            @Value("${query.result.max-bytes:4194304}") long maxBytes,
+            @Value("${query.result.fetch-size:500}") int fetchSize,
+            @Value("${query.result.timeout-ms:30000}") long timeoutMs
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxBytes = Math.max(1024, maxBytes);
+        this.fetchSize = Math.max(1, fetchSize);
+        this.timeoutMs = Math.max(100, timeoutMs);
+    }
+
+    // The statement actually sent to the database for a generated query
+    public String cappedSql(String sql) {
+        // newlines keep a trailing "-- comment" in the generated SQL from swallowing the wrapper
+        return "SELECT * FROM (\n" + stripTerminator(sql) + "\n) AS capped LIMIT " + (maxRows + 1L);
+    }
+
+    /**
+     * Execute a validated SELECT. When onBatch is given it receives the rows in batches while the
+     * result set is read (the returned rows are the same ones). plannedRows, when already known
+     * (see {@link QueryCostGuard}), is reported for truncated results instead of running EXPLAIN again.
+     * Throws {@link QueryCancelledException} when the handle is cancelled and {@link QueryTimeoutException}
+     * when the execution budget runs out.
+     */
+    @Transactional(readOnly = true)
+    public Result execute(String sql, Consumer<TabularResult> onBatch, RunningQueries.Handle handle, Long plannedRows) {
+        try {
+            // scoped to this transaction; the pooled connection keeps its default afterwards
+            jdbcTemplate.execute("SET LOCAL statement_timeout = " + timeoutMs);
+            return read(sql, onBatch, handle, plannedRows);
+        } catch (DataAccessException ex) {
+            if (handle != null && handle.isCancelled()) throw new QueryCancelledException(handle.id());
+            if (isStatementCancelled(ex)) {
+                throw new QueryTimeoutException("Query exceeded the " + timeoutMs + " ms execution budget", ex);
+            }
+            throw ex;
+        }
+    }
+
+    private Result read(String sql, Consumer<TabularResult> onBatch, RunningQueries.Handle handle, Long plannedRows) {
+        String capped = cappedSql(sql);
+
+        PreparedStatementCreator statement = con -> {
+            PreparedStatement ps = con.prepareStatement(capped, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            if (handle != null) handle.attach(ps);
+            return ps;
+        };
+        ResultSetExtractor<Read> reader = rs -> {
+            TabularResult.Builder rows = TabularResult.builder(rs.getMetaData());
+            int sent = 0;
+            boolean truncated = false;
+            while (rs.next()) {
+                if (handle != null) handle.throwIfCancelled();
+                if (rows.size() == maxRows || rows.bytes() > maxBytes) {
+                    truncated = true;
+                    break;
+                }
+                rows.add(rs);
+                if (onBatch != null && rows.size() - sent >= BATCH_ROWS) {
+                    onBatch.accept(rows.slice(sent, rows.size()));
+                    sent = rows.size();
+                }
+            }
+            if (onBatch != null && sent < rows.size()) {
+                onBatch.accept(rows.slice(sent, rows.size()));
+            }
+            return new Read(rows.build(), truncated);
+        };
+        Read read;
+        try {
+            read = jdbcTemplate.query(statement, reader);
+        } finally {
+            if (handle != null) handle.detach();
+        }
+        if (read == null) return new Result(TabularResult.empty(), false, 0L);
+        if (!read.truncated()) return new Result(read.rows(), false, (long) read.rows().rowCount());
+        Long estimate = plannedRows != null ? plannedRows : estimateRows(stripTerminator(sql));
+        log.info("Result truncated at {} rows (planner estimate {})", read.rows().rowCount(), estimate);
+        return new Result(read.rows(), true, estimate);
+    }
+
+    private record Read(TabularResult rows, boolean truncated) {}
+
+    // Planner row estimate for the unwrapped statement; null when EXPLAIN fails
+    Long estimateRows(String sql) {
+        try {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+            JsonNode rows = mapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? rows.asLong() : null;
+        } catch (DataAccessException | IOException ex) {
+            log.warn("Could not estimate result size: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    // PostgreSQL reports both statement_timeout and Statement.cancel() as SQLSTATE 57014 (query_canceled)
+    static boolean isStatementCancelled(DataAccessException ex) {
+        return ex.getMostSpecificCause() instanceof SQLException sql && "57014".equals(sql.getSQLState());
+    }
+
+    static String stripTerminator(String sql) {
+        String s = sql.strip();
+        while (s.endsWith(";")) s = s.substring(0, s.length() - 1).stripTrailing();
+        return s;
+    }
+}
@@ -0,0 +1,60 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.QueryHistory;
+import com.vedant.querybot.repository.HistoryCursor;
+import com.vedant.querybot.repository.QueryHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side of query_history (records are written by {@link QueryHistoryWriter}).
+ */
+@Service
+public class QueryHistoryService {
+
+    // One page of history plus the cursor for the next one (null on the last page)
+    public record Page(List<QueryHistory> items, String nextCursor) {}
+
+    private final QueryHistoryRepository repository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public QueryHistoryService(QueryHistoryRepository repository,
+                               @Value("${query.history.page-size:50}") int defaultPageSize,
+                               @Value("${query.history.max-page-size:200}") int maxPageSize) {
+        this.repository = repository;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(Math.max(1, defaultPageSize), this.maxPageSize);
+    }
+
+    // The table exists once Hibernate has applied the schema
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndex() {
+        repository.ensureSearchIndex();
+    }
+
+    public Optional<QueryHistory> get(long id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * Newest-first page of history, optionally for one table and matching a text search on the question.
+     * Fetches one row beyond the page to know whether another page exists, so at most limit + 1 rows are read.
+     * Throws IllegalArgumentException for a malformed cursor.
+     */
+    public Page page(String table, String search, String cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.min(Math.max(1, limit), maxPageSize);
+        HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor.trim());
+        List<QueryHistory> rows = repository.findPage(table, search, after, size + 1);
+        if (rows.size() <= size) return new Page(rows, null);
+
+        List<QueryHistory> items = rows.subList(0, size);
+        QueryHistory last = items.get(size - 1);
+        return new Page(items, new HistoryCursor(last.getExecutedAt(), last.getId()).encode());
+    }
+}
@@ -0,0 +1,203 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.PreviewCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for query_history. {@link #enqueue} only puts the record on a bounded
+ * queue; a single background thread encodes the previews (first {@code query.history.preview-rows}
+ * rows, {@link PreviewCodec}) and writes whatever has accumulated (up to
+ * {@code query.history.batch-size}) as one multi-row INSERT.
+ *
+ * When the queue is full, {@code query.history.overflow=drop-oldest} discards the oldest pending
+ * record (the query itself is never slowed down) and {@code block} makes the caller wait for room.
+ * Pending records are flushed on shutdown. Metrics: {@code query.history.queue.depth},
+ * {@code query.history.dropped}, {@code query.history.written} and {@code query.history.write.failures}.
+ */
+@Component
+public class QueryHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryHistoryWriter.class);
+
+    // Outcome of the SQL execution recorded with each entry
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+
+    // previewRows is trimmed to the preview size on enqueue and encoded on the writer thread;
+    // elapsedMs is the time the SQL spent executing (until completion, cancellation or timeout)
+    public record Entry(String nlQuery, String generatedSql, String tableName, List<Map<String, Object>> previewRows,
+                        Instant executedAt, String status, long elapsedMs) {}
+
+    private static final int COLUMNS = 7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<Entry> queue;
+    private final boolean block;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int previewRows;
+
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public QueryHistoryWriter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${query.history.queue-capacity:10000}") int queueCapacity,
+            @Value("${query.history.overflow:drop-oldest}") String overflow,
+            @Value("${query.history.batch-size:200}") int batchSize,
+            @Value("${query.history.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${query.history.preview-rows:50}") int previewRows
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.block = "block".equalsIgnoreCase(overflow);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.previewRows = Math.max(0, previewRows);
+
+        Gauge.builder("query.history.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.dropped = Counter.builder("query.history.dropped").register(meterRegistry);
+        this.written = Counter.builder("query.history.written").register(meterRegistry);
+        this.failures = Counter.builder("query.history.write.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this::drainLoop, "query-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Never touches the database on the caller's thread
+    public void enqueue(Entry entry) {
+        // copy the preview slice so the queue does not keep the whole result alive
+        List<Map<String, Object>> rows = entry.previewRows() == null ? List.of() : entry.previewRows();
+        entry = new Entry(entry.nlQuery(), entry.generatedSql(), entry.tableName(),
+                new ArrayList<>(rows.subList(0, Math.min(rows.size(), previewRows))), entry.executedAt(),
+                entry.status(), entry.elapsedMs());
+        if (block) {
+            try {
+                queue.put(entry);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+            return;
+        }
+        while (!queue.offer(entry)) {
+            if (queue.poll() != null) dropped.increment();
+        }
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // Stop the writer thread and write everything still queued
+    @PreDestroy
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = worker;
+        }
+        if (t != null) {
+            try {
+                t.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // never started, or the worker gave up: flush on this thread
+        drainRemaining();
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        drainRemaining();
+    }
+
+    private synchronized void drainRemaining() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // One INSERT ... VALUES (...), (...), ... per batch
+    private void write(List<Entry> batch) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO query_history (nl_query, generated_sql, table_name, result_preview, executed_at, status, elapsed_ms) VALUES ");
+        Object[] args = new Object[batch.size() * COLUMNS];
+        for (int i = 0; i < batch.size(); i++) {
+            Entry e = batch.get(i);
+            int a = i * COLUMNS;
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?, ?, ?, ?, ?)");
+            args[a] = e.nlQuery();
+            args[a + 1] = e.generatedSql();
+            args[a + 2] = e.tableName();
+            args[a + 3] = preview(e.previewRows());
+            args[a + 4] = Timestamp.from(e.executedAt());
+            args[a + 5] = e.status();
+            args[a + 6] = e.elapsedMs();
+        }
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            written.increment(batch.size());
+        } catch (Exception ex) {
+            failures.increment(batch.size());
+            log.warn("Failed to write {} query history records", batch.size(), ex);
+        }
+    }
+
+    private String preview(List<Map<String, Object>> rows) {
+        try {
+            return PreviewCodec.encode(rows);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to encode result preview", ex);
+            return null;
+        }
+    }
+}
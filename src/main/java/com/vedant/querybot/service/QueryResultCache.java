@@ -0,0 +1,148 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vedant.querybot.util.PreviewCodec;
+import com.vedant.querybot.util.TabularResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cache of executed results, keyed by table name and normalized SQL text. Uploaded tables are never
+ * modified after their upload completes (every upload creates a new table), so the same SQL against
+ * the same table returns the same rows and a hit skips the cost guard and the database entirely.
+ *
+ * Rows are stored in the {@link PreviewCodec} encoding and weighed by its size in bytes
+ * ({@code query.result-cache.max-bytes}); results larger than {@code max-entry-bytes}, or with values
+ * the encoding does not reproduce exactly (e.g. dates), are not cached. Entries of a table are dropped
+ * when a table of that name is uploaded again or dropped. Metrics: cache.* with cache=query_result.
+ */
+@Component
+public class QueryResultCache {
+
+    public record Key(String table, String sql) {}
+
+    private record Entry(String encodedRows, boolean truncated, Long totalRowsEstimate) {}
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final Cache<Key, Entry> cache;
+
+    public QueryResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${query.result-cache.enabled:true}") boolean enabled,
+            @Value("${query.result-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${query.result-cache.max-entry-bytes:1048576}") long maxEntryBytes,
+            @Value("${query.result-cache.ttl-minutes:60}") long ttlMinutes
+    ) {
+        this.enabled = enabled;
+        this.maxEntryBytes = Math.max(1, maxEntryBytes);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, maxBytes))
+                .<Key, Entry>weigher((k, e) -> k.sql().length() + e.encodedRows().length())
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, ttlMinutes)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "query_result");
+    }
+
+    public static Key key(String table, String sql) {
+        return new Key(table == null ? "" : table, normalize(sql));
+    }
+
+    // Decoded fresh on every hit
+    public Optional<QueryExecutor.Result> get(Key key) {
+        if (!enabled) return Optional.empty();
+        Entry e = cache.getIfPresent(key);
+        if (e == null) return Optional.empty();
+        return Optional.of(new QueryExecutor.Result(TabularResult.of(PreviewCodec.decode(e.encodedRows())), e.truncated(), e.totalRowsEstimate()));
+    }
+
+    public void put(Key key, QueryExecutor.Result result) {
+        if (!enabled) return;
+        // the codec reads rows as maps; materialize them once instead of per column pass
+        List<Map<String, Object>> rows = new ArrayList<>(result.rows().asMaps());
+        if (!PreviewCodec.encodesExactly(rows)) return;
+        String encoded = PreviewCodec.encode(rows);
+        // the encoding is base64 (one byte per char)
+        if (encoded.length() > maxEntryBytes) return;
+        cache.put(key, new Entry(encoded, result.truncated(), result.totalRowsEstimate()));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        invalidateTable(event.metadata().getTableName());
+    }
+
+    @EventListener
+    public void onTableDropped(TableDroppedEvent event) {
+        invalidateTable(event.tableName());
+    }
+
+    private void invalidateTable(String table) {
+        cache.asMap().keySet().removeIf(k -> k.table().equals(table));
+    }
+
+    // Collapse whitespace runs outside quoted literals/identifiers and drop trailing semicolons;
+    // case is kept because it is significant inside literals. Comments count as whitespace and are
+    // removed first, so the newline ending a "--" comment cannot pull the next line into it
+    static String normalize(String sql) {
+        if (sql == null) return "";
+        StringBuilder sb = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == quote) quote = 0;
+                continue;
+            }
+            if (c == '-' && i + 1 < sql.length() && sql.charAt(i + 1) == '-') {
+                while (i + 1 < sql.length() && sql.charAt(i + 1) != '\n') i++;
+                space = sb.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < sql.length() && sql.charAt(i + 1) == '*') {
+                // block comments nest in PostgreSQL
+                int depth = 0;
+                for (; i < sql.length(); i++) {
+                    if (sql.startsWith("/*", i)) {
+                        depth++;
+                        i++;
+                    } else if (sql.startsWith("*/", i)) {
+                        i++;
+                        if (--depth == 0) break;
+                    }
+                }
+                space = sb.length() > 0;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            if (c == '\'' || c == '"') quote = c;
+            sb.append(c);
+        }
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == ';' || sb.charAt(end - 1) == ' ')) end--;
+        sb.setLength(end);
+        return sb.toString();
+    }
+}
@@ -1,19 +1,18 @@
 package com.vedant.querybot.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.vedant.querybot.entity.QueryHistory;
-import com.vedant.querybot.entity.UploadedTableMetadata;
-import com.vedant.querybot.repository.QueryHistoryRepository;
-import com.vedant.querybot.repository.UploadedTableMetadataRepository;
 import com.vedant.querybot.util.SQLValidator;
+import com.vedant.querybot.util.TabularResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,27 +22,49 @@ public class QueryService {
     private static final Logger log = LoggerFactory.getLogger(QueryService.class);
 
     private final LLMService llmService;
-    private final JdbcTemplate jdbcTemplate;
-    private final QueryHistoryRepository historyRepository;
-    private final UploadedTableMetadataRepository metadataRepository;
-    private final ObjectMapper mapper = new ObjectMapper();
-
-    // In-memory per-session conversation memory (sessionId -> deque of last messages)
-    // We store messages as simple immutable records with role(user/assistant) and content
-    private final Map<String, Deque<ConvMessage>> sessionMemory = new ConcurrentHashMap<>();
-
-    private record ConvMessage(String role, String content) {}
+    private final QueryExecutor queryExecutor;
+    private final QueryHistoryWriter historyWriter;
+    private final LatestTableCache latestTableCache;
+    private final TableSchemaCache tableSchemaCache;
+    private final NlSqlCache sqlCache;
+    private final SemanticSqlCache semanticCache;
+    private final QueryWorkerPool workerPool;
+    private final DeterministicSummarizer deterministicSummarizer;
+    private final RunningQueries runningQueries;
+    private final QueryCostGuard costGuard;
+    private final QueryResultCache resultCache;
+
+    // Per-session conversation memory: bounded, idle sessions expire (see SessionMemoryStore)
+    private final SessionMemoryStore sessionMemory;
 
     public QueryService(
             LLMService llmService,
-            JdbcTemplate jdbcTemplate,
-            QueryHistoryRepository historyRepository,
-            UploadedTableMetadataRepository metadataRepository
+            QueryExecutor queryExecutor,
+            QueryHistoryWriter historyWriter,
+            LatestTableCache latestTableCache,
+            TableSchemaCache tableSchemaCache,
+            NlSqlCache sqlCache,
+            SemanticSqlCache semanticCache,
+            QueryWorkerPool workerPool,
+            DeterministicSummarizer deterministicSummarizer,
+            RunningQueries runningQueries,
+            QueryCostGuard costGuard,
+            QueryResultCache resultCache,
+            SessionMemoryStore sessionMemory
     ) {
         this.llmService = llmService;
-        this.jdbcTemplate = jdbcTemplate;
-        this.historyRepository = historyRepository;
-        this.metadataRepository = metadataRepository;
+        this.queryExecutor = queryExecutor;
+        this.historyWriter = historyWriter;
+        this.latestTableCache = latestTableCache;
+        this.tableSchemaCache = tableSchemaCache;
+        this.sqlCache = sqlCache;
+        this.semanticCache = semanticCache;
+        this.workerPool = workerPool;
+        this.deterministicSummarizer = deterministicSummarizer;
+        this.runningQueries = runningQueries;
+        this.costGuard = costGuard;
+        this.resultCache = resultCache;
+        this.sessionMemory = sessionMemory;
     }
 
 
@@ -52,11 +73,78 @@ public class QueryService {
        ============================================================ */
     // Changed signature to accept sessionId for per-session conversational memory
     public QueryResult executeNlQueryWithSummary(String nlQuery, String requestedTable, String sessionId) {
+        try {
+            return executeNlQueryWithSummaryAsync(nlQuery, requestedTable, sessionId).join();
+        } catch (CompletionException ex) {
+            // surface the original exception (IllegalArgumentException -> 400 in the controller)
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    // Same pipeline without blocking the caller: the two LLM calls are in flight on the HTTP client,
+    // table/schema/memory lookups, SQL execution and bookkeeping run on the QueryWorkerPool.
+    // Validation errors fail the future.
+    public CompletableFuture<QueryResult> executeNlQueryWithSummaryAsync(String nlQuery, String requestedTable, String sessionId) {
+        return executeNlQueryWithSummaryAsync(nlQuery, requestedTable, sessionId, null);
+    }
+
+    // queryId (optional, client-chosen) lets the same session cancel the question while it runs
+    public CompletableFuture<QueryResult> executeNlQueryWithSummaryAsync(String nlQuery, String requestedTable, String sessionId, String queryId) {
+        return run(nlQuery, requestedTable, sessionId, queryId, null);
+    }
 
-        String latestTable = resolveLatestTableName();
-        if (latestTable == null) {
-            throw new IllegalStateException("No uploaded table available");
+    // Streaming variant: the listener gets the SQL once validated, the rows while they are fetched and
+    // the summary tokens as the model produces them; the future completes with the full result
+    public CompletableFuture<QueryResult> streamNlQuery(String nlQuery, String requestedTable, String sessionId, String queryId, QueryStreamListener listener) {
+        return run(nlQuery, requestedTable, sessionId, queryId, Objects.requireNonNull(listener));
+    }
+
+    // Cancel a running question of this session: an executing statement is aborted in the database,
+    // later stages are skipped and the future fails with QueryCancelledException. False if not running.
+    public boolean cancel(String queryId, String sessionId) {
+        return runningQueries.cancel(queryId, sessionId);
+    }
+
+    private CompletableFuture<QueryResult> run(String nlQuery, String requestedTable, String sessionId, String queryId, QueryStreamListener listener) {
+        Executor workers = workerPool.executor();
+        RunningQueries.Handle handle;
+        try {
+            handle = runningQueries.start(queryId, sessionId);
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
         }
+        try {
+            // prepare() may hit the database (latest table, schema, JDBC session memory) and the embedder,
+            // so even the first stage runs on a worker and the request thread returns at once
+            return CompletableFuture.supplyAsync(() -> prepare(nlQuery, requestedTable, sessionId), workers)
+                    .thenCompose(p -> p.sql()
+                            .thenApplyAsync(generated -> execute(nlQuery, p, generated, listener, handle), workers)
+                            .thenCompose(executed -> summarize(nlQuery, p, executed, listener, handle)
+                                    .thenApplyAsync(summary -> finish(nlQuery, sessionId, executed, summary), workers)))
+                    .whenComplete((result, error) -> runningQueries.finish(handle));
+        } catch (RuntimeException ex) {
+            // the worker queue is full
+            runningQueries.finish(handle);
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    // Everything before the SQL is known; sql() is already complete on a cache hit
+    private record Prepared(String table, String conversationContext, NlSqlCache.Key cacheKey,
+                            CompletableFuture<Generated> sql) {}
+
+    // probe is the embedded question (null on an exact cache hit), kept to insert model SQL into the semantic cache
+    private record Generated(String sql, boolean cacheable, boolean fromModel, SemanticSqlCache.Probe probe) {}
+
+    private record Executed(String table, String sql, TabularResult rows, boolean truncated,
+                            Long totalRowsEstimate, long elapsedMs, String factSnippet) {}
+
+    private Prepared prepare(String nlQuery, String requestedTable, String sessionId) {
+
+        LatestTableCache.LatestTable latest = latestTableCache.latest()
+                .orElseThrow(() -> new IllegalStateException("No uploaded table available"));
+        String latestTable = latest.tableName();
 
         if (requestedTable != null &&
                 !requestedTable.isBlank() &&
@@ -70,34 +158,13 @@ public class QueryService {
         /* ------------------------------------------------------------
            Build STRONG Column Context for the LLM
            ------------------------------------------------------------ */
-        Optional<UploadedTableMetadata> meta = getLatestMetadata();
-        String columnsContext = "(No columns available)\n";
-
-        List<String> availableColumns = new ArrayList<>();
-
-        if (meta.isPresent()) {
-            try {
-                LinkedHashMap<String, String> colMap =
-                        mapper.readValue(meta.get().getColumnsJson(),
-                                new TypeReference<LinkedHashMap<String, String>>() {});
-
-                // MUCH STRONGER SCHEMA DESCRIPTION
-                StringBuilder sb = new StringBuilder();
-                sb.append("This table contains the following columns:\n");
-
-                for (String col : colMap.values()) {
-                    sb.append(" - ").append(col).append("\n");
-                    availableColumns.add(col);
-                }
-
-                sb.append("\nWhen answering the question, use ONLY these columns.\n");
-
-                columnsContext = sb.toString();
+        // Prebuilt at upload time (or once per table from information_schema): no parsing or string building here
+        TableSchema schema = tableSchemaCache.get(latestTable, latest.columns());
+        String columnsContext = schema.promptFragment();
+        List<String> availableColumns = schema.columnNames();
 
-            } catch (Exception e) {
-                log.warn("Failed to parse columns metadata", e);
-            }
-        }
+        // SQL cache key: taken before the current question is added to memory
+        NlSqlCache.Key cacheKey = sqlCacheKey(nlQuery, schema, sessionId);
 
         /* ------------------------------------------------------------
            Conversation memory: add the user's current question to memory and include last 10 messages in the prompt
@@ -118,52 +185,150 @@ public class QueryService {
                         "Conversation history:\n" + conversationContext + "\n" +
                         "User question: " + nlQuery + "\n";
 
-        log.info("=== LLM PROMPT SENT ===\n{}\n========================", prompt);
-
         /* ------------------------------------------------------------
-           Generate SQL via LLM
+           Generate SQL via LLM (unless the same or a paraphrased question was answered before)
            ------------------------------------------------------------ */
-        String sql = llmService.generateSqlFromNl(prompt, latestTable, availableColumns);
+        String cached = sqlCache.get(cacheKey).orElse(null);
+        if (cached != null) {
+            log.info("=== SQL FROM CACHE ===\n{}\n=====================", cached);
+            return new Prepared(latestTable, conversationContext, cacheKey,
+                    CompletableFuture.completedFuture(new Generated(cached, false, false, null)));
+        }
+        // the embedding is in flight on the embedder's HTTP client; the lookup and model call chain onto it
+        CompletableFuture<Generated> generated = semanticCache.probe(latestTable, cacheKey).thenCompose(probe -> {
+            String similar = semanticCache.find(probe).orElse(null);
+            if (similar != null) {
+                // remember the paraphrase exactly too, so repeating it skips the embedding
+                log.info("=== SQL FROM SEMANTIC CACHE ===\n{}\n=====================", similar);
+                return CompletableFuture.completedFuture(new Generated(similar, true, false, probe));
+            }
+            log.info("=== LLM PROMPT SENT ===\n{}\n========================", prompt);
+            return llmService.generateSqlAsync(prompt, latestTable, availableColumns)
+                    .thenApply(g -> {
+                        log.info("=== SQL RECEIVED FROM LLM ===\n{}\n=====================", g.sql());
+                        return new Generated(g.sql(), !g.fallback(), !g.fallback(), probe);
+                    });
+        });
+        return new Prepared(latestTable, conversationContext, cacheKey, generated);
+    }
 
-        log.info("=== SQL RECEIVED FROM LLM ===\n{}\n=====================", sql);
+    private Executed execute(String nlQuery, Prepared p, Generated generated, QueryStreamListener listener, RunningQueries.Handle handle) {
+        // cancelled while the SQL was being generated
+        handle.throwIfCancelled();
+        String sql = generated.sql();
 
         if (!SQLValidator.isSelectOnly(sql)) {
             throw new IllegalArgumentException("Only SELECT queries allowed");
         }
 
-        if (!referencesOnlyTable(sql, latestTable)) {
+        if (!referencesOnlyTable(sql, p.table())) {
             throw new IllegalArgumentException("SQL references unauthorized tables");
         }
 
+        // identical SQL against the same (immutable) uploaded table is answered without the database
+        QueryResultCache.Key resultKey = QueryResultCache.key(p.table(), sql);
+        Optional<QueryExecutor.Result> cached = resultCache.get(resultKey);
+
+        // planner estimate of the capped statement; too expensive -> IllegalArgumentException (400)
+        QueryCostGuard.Verdict verdict = cached.isPresent() ? null : costGuard.check(queryExecutor.cappedSql(sql));
+
+        if (listener != null) {
+            listener.onSql(sql);
+        }
+
         /* ------------------------------------------------------------
-           Execute SQL
+           Execute SQL (row/byte capped; streaming callers get the rows in batches while fetched)
            ------------------------------------------------------------ */
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
+        long started = System.nanoTime();
+        QueryExecutor.Result result;
+        if (cached.isPresent()) {
+            result = cached.get();
+            if (listener != null) sendInBatches(result.rows(), listener);
+        } else {
+            try {
+                result = queryExecutor.execute(sql, listener == null ? null : listener::onRows, handle,
+                        verdict == null ? null : verdict.estimatedRows());
+            } catch (QueryCancelledException | QueryTimeoutException ex) {
+                // record the aborted SQL and how long it ran, then fail the question
+                String status = ex instanceof QueryCancelledException ? QueryHistoryWriter.STATUS_CANCELLED : QueryHistoryWriter.STATUS_TIMEOUT;
+                historyWriter.enqueue(new QueryHistoryWriter.Entry(nlQuery, sql, p.table(), List.of(), Instant.now(),
+                        status, elapsedMs(started)));
+                throw ex;
+            }
+            resultCache.put(resultKey, result);
+        }
+        long elapsedMs = elapsedMs(started);
+        TabularResult rows = result.rows();
+
+        log.info("=== QUERY EXECUTED === {} rows returned{}{}", rows.rowCount(), result.truncated() ? " (truncated)" : "",
+                cached.isPresent() ? " (result cache)" : "");
 
-        log.info("=== QUERY EXECUTED === {} rows returned", rows.size());
+        // only model-generated SQL that validated and ran is reused
+        if (generated.cacheable()) {
+            sqlCache.put(p.cacheKey(), sql);
+        }
+        if (generated.fromModel()) {
+            semanticCache.put(generated.probe(), sql);
+        }
 
         /* ------------------------------------------------------------
            Build deterministic facts and summarize results using LLM
            (build fact snippet first to ground the summarizer and avoid hallucinations)
            ------------------------------------------------------------ */
-        String factSnippet = buildFactSnippet(rows);
+        String factSnippet = buildFactSnippet(rows.asMaps());
+        if (result.truncated()) {
+            // keep the summarizer from presenting the capped rows as the whole answer
+            factSnippet += " | NOTE: result truncated to the first " + rows.rowCount() + " rows"
+                    + (result.totalRowsEstimate() == null ? "" : " of about " + result.totalRowsEstimate());
+        }
+        return new Executed(p.table(), sql, rows, result.truncated(), result.totalRowsEstimate(), elapsedMs, factSnippet);
+    }
+
+    // Cached rows reach a streaming client in the same batch sizes as fetched ones
+    private static void sendInBatches(TabularResult rows, QueryStreamListener listener) {
+        for (int from = 0; from < rows.rowCount(); from += QueryExecutor.BATCH_ROWS) {
+            listener.onRows(rows.slice(from, Math.min(rows.rowCount(), from + QueryExecutor.BATCH_ROWS)));
+        }
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    private CompletableFuture<String> summarize(String nlQuery, Prepared p, Executed executed, QueryStreamListener listener, RunningQueries.Handle handle) {
+        // no summary call for a question cancelled while its SQL ran
+        handle.throwIfCancelled();
+
         // Decide whether the user's question expects a conversational/opinionated reply
         boolean allowFreeform = isConversational(nlQuery);
-        String summary = llmService.summarizeResult(nlQuery, latestTable, rows, conversationContext, factSnippet, allowFreeform);
+
+        // empty, scalar and single-row results are phrased from the facts without a model call
+        // (not for truncated results: a single capped row is not a single-row answer)
+        Optional<String> fixed = executed.truncated() ? Optional.empty()
+                : deterministicSummarizer.summarize(executed.rows().asMaps(), executed.factSnippet(), allowFreeform);
+        if (fixed.isPresent()) {
+            if (listener != null) listener.onToken(fixed.get());
+            return CompletableFuture.completedFuture(fixed.get());
+        }
+        if (listener == null) {
+            return llmService.summarizeResultAsync(nlQuery, p.table(), executed.rows(),
+                    p.conversationContext(), executed.factSnippet(), allowFreeform);
+        }
+        return llmService.streamSummaryAsync(nlQuery, p.table(), executed.rows(),
+                p.conversationContext(), executed.factSnippet(), allowFreeform, listener::onToken);
+    }
+
+    private QueryResult finish(String nlQuery, String sessionId, Executed executed, String summary) {
+        String sql = executed.sql();
+        TabularResult rows = executed.rows();
+        String factSnippet = executed.factSnippet();
 
         /* ------------------------------------------------------------
-           Save history
+           Save history (write-behind: serialized and batched off the request path)
            ------------------------------------------------------------ */
-        try {
-            QueryHistory h = new QueryHistory();
-            h.setNlQuery(nlQuery);
-            h.setGeneratedSql(sql);
-            h.setResultPreview(mapper.writeValueAsString(rows.size() > 50
-                    ? rows.subList(0, 50)
-                    : rows));
-
-            historyRepository.save(h);
-        } catch (Exception ignored) {}
+        // the writer copies only the preview rows out of the lazy map view
+        historyWriter.enqueue(new QueryHistoryWriter.Entry(nlQuery, sql, executed.table(), rows.asMaps(), Instant.now(),
+                QueryHistoryWriter.STATUS_OK, executed.elapsedMs()));
 
         /* ------------------------------------------------------------
            Store assistant summary back into session memory (keep only last 10 messages)
@@ -176,48 +341,33 @@ public class QueryService {
             }
         }
 
-        return new QueryResult(sql, rows, summary);
+        return new QueryResult(sql, rows, summary, executed.truncated(), executed.totalRowsEstimate());
     }
 
     /* ============================================================
        SUPPORT CLASSES
        ============================================================ */
 
-    public record QueryResult(String sql, List<Map<String, Object>> rows, String nlAnswer) {}
-
-    private String resolveLatestTableName() {
-        return getLatestMetadata()
-                .map(UploadedTableMetadata::getTableName)
-                .orElse(null);
-    }
-
-    private Optional<UploadedTableMetadata> getLatestMetadata() {
-        return metadataRepository.findAll()
-                .stream()
-                .max(Comparator.comparingLong(m -> Optional.ofNullable(m.getId()).orElse(0L)));
-    }
+    // truncated: rows stop at query.result.max-rows / max-bytes; totalRowsEstimate is then the planner's estimate
+    public record QueryResult(String sql, TabularResult rows, String nlAnswer,
+                              boolean truncated, Long totalRowsEstimate) {}
 
     /* ============================================================
        Conversation memory helpers
        ============================================================ */
-    // Add a message to session memory; keep only last 10 messages
+    // Add a message to session memory; the store keeps only the last few messages
     public void addToMemory(String sessionId, String role, String content) {
         if (sessionId == null) return;
-        sessionMemory.compute(sessionId, (k, dq) -> {
-            if (dq == null) dq = new ArrayDeque<>();
-            dq.addLast(new ConvMessage(role, content));
-            while (dq.size() > 10) dq.removeFirst();
-            return dq;
-        });
+        sessionMemory.append(sessionId, role, content);
     }
 
     // Return formatted conversation context (oldest -> newest)
     public String buildConversationContext(String sessionId) {
         if (sessionId == null) return "";
-        Deque<ConvMessage> dq = sessionMemory.get(sessionId);
-        if (dq == null || dq.isEmpty()) return "(no prior messages)\n";
+        List<SessionMemoryStore.Message> dq = sessionMemory.messages(sessionId);
+        if (dq.isEmpty()) return "(no prior messages)\n";
         StringBuilder sb = new StringBuilder();
-        for (ConvMessage m : dq) {
+        for (SessionMemoryStore.Message m : dq) {
             sb.append(m.role()).append(": ").append(m.content()).append("\n");
         }
         return sb.toString();
@@ -227,9 +377,8 @@ public class QueryService {
     public List<Map<String, String>> getConversation(String sessionId) {
         List<Map<String, String>> out = new ArrayList<>();
         if (sessionId == null) return out;
-        Deque<ConvMessage> dq = sessionMemory.get(sessionId);
-        if (dq == null || dq.isEmpty()) return out;
-        for (ConvMessage m : dq) {
+        List<SessionMemoryStore.Message> dq = sessionMemory.messages(sessionId);
+        for (SessionMemoryStore.Message m : dq) {
             Map<String, String> mm = new HashMap<>();
             mm.put("role", m.role());
             mm.put("content", m.content());
@@ -295,17 +444,32 @@ public class QueryService {
     // Build a filtered conversation context for LLM prompts that includes only user messages and explicit FACTS
     private String buildPromptConversationContext(String sessionId) {
         if (sessionId == null) return "";
-        Deque<ConvMessage> dq = sessionMemory.get(sessionId);
-        if (dq == null || dq.isEmpty()) return "(no prior messages)\n";
+        List<SessionMemoryStore.Message> dq = sessionMemory.messages(sessionId);
+        if (dq.isEmpty()) return "(no prior messages)\n";
         StringBuilder sb = new StringBuilder();
-        for (ConvMessage m : dq) {
-            if (m.role.equals("user") || (m.role.equals("assistant") && m.content.startsWith("FACTS:"))) {
+        for (SessionMemoryStore.Message m : dq) {
+            if (m.role().equals("user") || (m.role().equals("assistant") && m.content().startsWith("FACTS:"))) {
                 sb.append(m.role()).append(": ").append(m.content()).append("\n");
             }
         }
         return sb.toString();
     }
 
+    // The parts of the conversation a follow-up question can depend on: the previous user turn and the latest FACTS
+    private NlSqlCache.Key sqlCacheKey(String nlQuery, TableSchema schema, String sessionId) {
+        String previousUser = null;
+        String latestFacts = null;
+        List<SessionMemoryStore.Message> dq = sessionMemory.messages(sessionId);
+        for (int i = dq.size() - 1; i >= 0 && (previousUser == null || latestFacts == null); i--) {
+            SessionMemoryStore.Message m = dq.get(i);
+            if (previousUser == null && m.role().equals("user")) previousUser = m.content();
+            if (latestFacts == null && m.role().equals("assistant") && m.content().startsWith("FACTS:")) {
+                latestFacts = m.content();
+            }
+        }
+        return NlSqlCache.key(nlQuery, schema, previousUser, latestFacts);
+    }
+
     // Heuristic to determine if the query is conversational in nature
     private boolean isConversational(String query) {
         if (query == null) return false;
@@ -0,0 +1,17 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.TabularResult;
+
+/**
+ * Receives the intermediate results of {@link QueryService#streamNlQuery} as soon as each is known:
+ * the validated SQL, the result rows in batches while they are fetched, then the summary tokens.
+ * Callbacks run on worker or HTTP client threads, one at a time and in that order. Throwing aborts the question.
+ */
+public interface QueryStreamListener {
+
+    void onSql(String sql);
+
+    void onRows(TabularResult rows);
+
+    void onToken(String token);
+}
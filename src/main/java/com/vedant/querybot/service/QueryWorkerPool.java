@@ -0,0 +1,44 @@
+package com.vedant.querybot.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small bounded pool for the blocking stages of an asynchronous question (latest table, schema and
+ * session memory lookups, embedding, SQL execution, history writes). LLM round trips do not occupy it: they are in flight on the HTTP client,
+ * so a handful of threads serves many concurrent questions. When the queue is full new work
+ * is rejected rather than piling up.
+ *
+ * Deliberately not an {@link Executor} bean, so Spring Boot's default task executor stays in place.
+ */
+@Component
+public class QueryWorkerPool {
+
+    private final ThreadPoolExecutor executor;
+
+    public QueryWorkerPool(
+            @Value("${query.workers.threads:8}") int threads,
+            @Value("${query.workers.queue-capacity:512}") int queueCapacity
+    ) {
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> new Thread(r, "query-" + seq.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,124 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Questions in flight, by query id, so they can be cancelled from another request (cancel endpoint)
+ * or when the client goes away. Cancelling marks the handle, which every pipeline stage checks, and
+ * cancels the JDBC statement if one is executing, which makes PostgreSQL abort it server-side and
+ * frees the pooled connection. Only the session that started a question can cancel it.
+ */
+@Component
+public class RunningQueries {
+
+    private static final Logger log = LoggerFactory.getLogger(RunningQueries.class);
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Map<String, Handle> running = new ConcurrentHashMap<>();
+    private final Counter cancelled;
+
+    public RunningQueries(MeterRegistry meterRegistry) {
+        Gauge.builder("query.running", running, Map::size).register(meterRegistry);
+        this.cancelled = Counter.builder("query.cancelled").register(meterRegistry);
+    }
+
+    /** Cancellation state of one question. */
+    public final class Handle {
+        private final String id;
+        private final String sessionId;
+        private volatile boolean cancelled;
+        private volatile Statement statement;
+
+        private Handle(String id, String sessionId) {
+            this.id = id;
+            this.sessionId = sessionId;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void throwIfCancelled() {
+            if (cancelled) throw new QueryCancelledException(id);
+        }
+
+        // Called with the statement about to execute; a cancel that raced ahead of it aborts immediately
+        public void attach(Statement statement) {
+            this.statement = statement;
+            if (cancelled) {
+                cancelStatement(statement);
+                throwIfCancelled();
+            }
+        }
+
+        public void detach() {
+            this.statement = null;
+        }
+
+        private boolean cancel() {
+            if (cancelled) return false;
+            cancelled = true;
+            Statement s = statement;
+            if (s != null) cancelStatement(s);
+            return true;
+        }
+
+        private void cancelStatement(Statement s) {
+            try {
+                s.cancel();
+            } catch (SQLException ex) {
+                log.warn("Could not cancel statement of query {}: {}", id, ex.getMessage());
+            }
+        }
+    }
+
+    // Register a question; a null id gets a generated one. Throws IllegalArgumentException for a
+    // malformed id or one that is already running.
+    public Handle start(String queryId, String sessionId) {
+        String id = queryId == null || queryId.isBlank() ? UUID.randomUUID().toString() : queryId.trim();
+        if (!ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid query id");
+        }
+        Handle handle = new Handle(id, sessionId);
+        if (running.putIfAbsent(id, handle) != null) {
+            throw new IllegalArgumentException("Query id already in use: " + id);
+        }
+        return handle;
+    }
+
+    public void finish(Handle handle) {
+        running.remove(handle.id, handle);
+    }
+
+    // True when a running question of this session was cancelled by this call
+    public boolean cancel(String queryId, String sessionId) {
+        if (queryId == null) return false;
+        Handle handle = running.get(queryId);
+        if (handle == null || !Objects.equals(handle.sessionId, sessionId)) return false;
+        if (!handle.cancel()) return false;
+        cancelled.increment();
+        log.info("Cancelled query {}", queryId);
+        return true;
+    }
+
+    public int size() {
+        return running.size();
+    }
+}
@@ -0,0 +1,263 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Similarity cache of generated SQL for paraphrased questions, consulted after the exact-match
+ * {@link NlSqlCache} misses and before the LLM is called. Questions are embedded with the configured
+ * {@link Embedder} and compared (cosine) against the questions already answered for the same table.
+ *
+ * A stored answer is only reused when, besides scoring at least {@code query.semantic-cache.threshold},
+ * it was generated for the same schema fingerprint and conversational context, and its question
+ * contains the same numbers ("top 5" and "top 10" embed almost identically but need different SQL).
+ * A question made of exactly the same words in a different order ("customers with the most orders" /
+ * "orders with the most customers") is never matched: bag-of-words embedders score such role swaps as
+ * identical, yet they ask for different SQL.
+ *
+ * Each table has its own bounded index (oldest entry replaced first) behind a read-write lock, so
+ * lookups run concurrently and only inserts are exclusive. Indexes are dropped on upload.
+ * Metrics: {@code query.semantic_cache.lookups{result=hit|miss}}, {@code query.semantic_cache.hit_ratio},
+ * {@code query.semantic_cache.lookup} (scan latency) and {@code query.semantic_cache.embed}.
+ */
+@Component
+public class SemanticSqlCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticSqlCache.class);
+
+    // embedded question plus everything an entry must match exactly; vector is null when the cache is off
+    public record Probe(String table, String question, String schemaFingerprint, String context, String numbers,
+                        String words, String wordBag, float[] vector) {}
+
+    private record Entry(String schemaFingerprint, String context, String numbers, String words, String wordBag,
+                         String question, String sql) {}
+
+    private final Embedder embedder;
+    private final boolean enabled;
+    private final double threshold;
+    private final int maxEntriesPerTable;
+    private final Cache<String, VectorIndex> indexes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer lookupTimer;
+    private final Timer embedTimer;
+
+    public SemanticSqlCache(
+            @Nullable Embedder embedder,
+            MeterRegistry meterRegistry,
+            @Value("${query.semantic-cache.enabled:false}") boolean enabled,
+            @Value("${query.semantic-cache.threshold:0.92}") double threshold,
+            @Value("${query.semantic-cache.max-entries-per-table:1024}") int maxEntriesPerTable,
+            @Value("${query.semantic-cache.max-tables:64}") long maxTables
+    ) {
+        this.embedder = embedder;
+        this.enabled = enabled && embedder != null;
+        if (enabled && embedder == null) {
+            log.warn("query.semantic-cache.enabled is set but no embedder is configured (query.semantic-cache.embedder); semantic cache disabled");
+        }
+        this.threshold = threshold;
+        this.maxEntriesPerTable = Math.max(1, maxEntriesPerTable);
+        this.indexes = Caffeine.newBuilder().maximumSize(Math.max(1, maxTables)).build();
+
+        this.hits = Counter.builder("query.semantic_cache.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("query.semantic_cache.lookups").tag("result", "miss").register(meterRegistry);
+        this.lookupTimer = Timer.builder("query.semantic_cache.lookup").register(meterRegistry);
+        this.embedTimer = Timer.builder("query.semantic_cache.embed").register(meterRegistry);
+        meterRegistry.gauge("query.semantic_cache.hit_ratio", this, c -> {
+            double total = c.hits.count() + c.misses.count();
+            return total == 0 ? 0 : c.hits.count() / total;
+        });
+        meterRegistry.gauge("query.semantic_cache.entries", this, c -> c.size());
+    }
+
+    // Embed the question once; the same probe is used for the lookup and, after a model call, the insert.
+    // The future never fails: an embedding error yields a probe without a vector (a miss)
+    public CompletableFuture<Probe> probe(String table, NlSqlCache.Key key) {
+        if (!enabled) return CompletableFuture.completedFuture(probe(table, key, null));
+        long started = System.nanoTime();
+        CompletableFuture<float[]> embedded;
+        try {
+            embedded = embedder.embedAsync(key.question());
+        } catch (RuntimeException ex) {
+            embedded = CompletableFuture.failedFuture(ex);
+        }
+        return embedded.handle((vector, error) -> {
+            embedTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (error != null) {
+                log.warn("Embedding failed; skipping semantic cache", error);
+                vector = null;
+            }
+            return probe(table, key, vector);
+        });
+    }
+
+    private static Probe probe(String table, NlSqlCache.Key key, float[] vector) {
+        List<String> words = words(key.question());
+        List<String> bag = new ArrayList<>(words);
+        Collections.sort(bag);
+        return new Probe(table, key.question(), key.schemaFingerprint(), key.context(), numbers(key.question()),
+                String.join(" ", words), String.join(" ", bag), vector);
+    }
+
+    public Optional<String> find(Probe probe) {
+        if (probe.vector() == null) return Optional.empty();
+        VectorIndex index = indexes.getIfPresent(probe.table());
+        Entry match = index == null ? null : lookupTimer.record(() -> index.nearest(probe, threshold));
+        if (match == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        log.info("Semantic cache hit for \"{}\" (stored question \"{}\")", probe.question(), match.question());
+        return Optional.of(match.sql());
+    }
+
+    public void put(Probe probe, String sql) {
+        if (probe.vector() == null) return;
+        indexes.get(probe.table(), t -> new VectorIndex(maxEntriesPerTable))
+                .add(probe, new Entry(probe.schemaFingerprint(), probe.context(), probe.numbers(), probe.words(),
+                        probe.wordBag(), probe.question(), sql));
+    }
+
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        indexes.invalidateAll();
+    }
+
+    public long size() {
+        long n = 0;
+        for (VectorIndex index : indexes.asMap().values()) n += index.size();
+        return n;
+    }
+
+    // The numeric literals of a question in order, e.g. "top 5 in 2023" -> "5,2023"
+    static String numbers(String question) {
+        List<String> out = new ArrayList<>();
+        int i = 0;
+        while (i < question.length()) {
+            while (i < question.length() && !Character.isDigit(question.charAt(i))) i++;
+            int start = i;
+            while (i < question.length() && (Character.isDigit(question.charAt(i)) || question.charAt(i) == '.')) i++;
+            if (i > start) out.add(question.substring(start, i));
+        }
+        return String.join(",", out);
+    }
+
+    // Lower-cased words of a question in order
+    static List<String> words(String question) {
+        List<String> out = new ArrayList<>();
+        String s = question.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < s.length()) {
+            while (i < s.length() && !Character.isLetterOrDigit(s.charAt(i))) i++;
+            int start = i;
+            while (i < s.length() && Character.isLetterOrDigit(s.charAt(i))) i++;
+            if (i > start) out.add(s.substring(start, i));
+        }
+        return out;
+    }
+
+    /**
+     * Flat, fixed-capacity index: vectors in a ring buffer, nearest neighbour by a linear scan of dot
+     * products. At the sizes a per-table question cache reaches (hundreds to low thousands) a scan over
+     * contiguous float arrays is cheaper than maintaining a graph or tree index.
+     */
+    static final class VectorIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final float[][] vectors;
+        private final Entry[] entries;
+        private int size;
+        private int next; // slot overwritten by the next insert once full
+
+        VectorIndex(int capacity) {
+            this.vectors = new float[capacity][];
+            this.entries = new Entry[capacity];
+        }
+
+        Entry nearest(Probe probe, double threshold) {
+            lock.readLock().lock();
+            try {
+                int slot = nearestSlot(probe);
+                return slot >= 0 && dot(vectors[slot], probe.vector()) >= threshold ? entries[slot] : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(Probe probe, Entry entry) {
+            lock.writeLock().lock();
+            try {
+                // the same question answered again replaces its entry instead of taking a new slot
+                int slot = nearestSlot(probe);
+                if (slot < 0 || dot(vectors[slot], probe.vector()) < 0.9999) {
+                    slot = next;
+                    next = (next + 1) % entries.length;
+                    if (size < entries.length) size++;
+                }
+                vectors[slot] = probe.vector();
+                entries[slot] = entry;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Best-scoring slot among entries with matching fingerprint, context and numbers that are not a
+        // reordering of the probe's words; -1 if none
+        private int nearestSlot(Probe probe) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            float[] q = probe.vector();
+            for (int i = 0; i < size; i++) {
+                Entry e = entries[i];
+                if (!e.numbers().equals(probe.numbers())
+                        || !Objects.equals(e.schemaFingerprint(), probe.schemaFingerprint())
+                        || !e.context().equals(probe.context())
+                        || (e.wordBag().equals(probe.wordBag()) && !e.words().equals(probe.words()))) {
+                    continue;
+                }
+                double score = dot(vectors[i], q);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        private static double dot(float[] a, float[] b) {
+            if (a.length != b.length) return -1;
+            double sum = 0;
+            for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.vedant.querybot.service;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a session's conversation memory as soon as the servlet container destroys the
+ * HttpSession (timeout or invalidate), instead of waiting for the store's idle TTL.
+ * Registered with the embedded container automatically because it is an HttpSessionListener bean.
+ * Conversations named by the client ({@code X-Conversation-Id}) are not tied to an HttpSession and
+ * expire through the idle TTL only.
+ */
+@Component
+public class SessionMemoryCleanup implements HttpSessionListener {
+
+    private final SessionMemoryStore store;
+
+    public SessionMemoryCleanup(SessionMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        store.evict(event.getSession().getId());
+    }
+}
@@ -0,0 +1,22 @@
+package com.vedant.querybot.service;
+
+import java.util.List;
+
+/**
+ * Per-session conversation memory used by {@link QueryService}: the last few user questions,
+ * assistant answers and FACTS lines of each HTTP session. Implementations bound both the number of
+ * messages per session and the sessions kept, so abandoned sessions do not accumulate.
+ */
+public interface SessionMemoryStore {
+
+    record Message(String role, String content) {}
+
+    // Append a message, dropping the oldest ones beyond the per-session limit
+    void append(String sessionId, String role, String content);
+
+    // Snapshot of the session's messages, oldest first; empty for unknown or expired sessions
+    List<Message> messages(String sessionId);
+
+    // Forget a session (its HttpSession was destroyed)
+    void evict(String sessionId);
+}
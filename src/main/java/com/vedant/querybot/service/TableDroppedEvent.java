@@ -0,0 +1,7 @@
+package com.vedant.querybot.service;
+
+/**
+ * Published by FileService after it drops a table, so caches holding data of that table can discard it.
+ */
+public record TableDroppedEvent(String tableName) {
+}
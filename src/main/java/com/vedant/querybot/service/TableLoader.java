@@ -0,0 +1,20 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.RowChunk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes parsed upload rows into a freshly created table.
+ * One loader is opened per upload and receives the rows chunk by chunk, already
+ * encoded column by column for the current table types.
+ */
+public interface TableLoader extends Closeable {
+
+    // Append a chunk whose columns are aligned with the table columns
+    void append(RowChunk chunk) throws IOException;
+
+    // Complete any in-flight statement so DDL (e.g. widening a column) can run against the table
+    void flush() throws IOException;
+}
@@ -0,0 +1,51 @@
+package com.vedant.querybot.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Immutable description of an uploaded table as the query path needs it: the columns with
+ * their SQL types, the schema block of the LLM prompt prebuilt once, and a fingerprint of
+ * table + columns + types that changes whenever the schema the model sees changes.
+ */
+public record TableSchema(String tableName, List<Column> columns, List<String> columnNames, String promptFragment,
+                          String fingerprint) {
+
+    // name is the SQL column, originalName the upload header (may equal name), type the SQL type (null if unknown)
+    public record Column(String name, String originalName, String type) {}
+
+    public static TableSchema of(String tableName, List<Column> columns) {
+        List<String> names = new ArrayList<>(columns.size());
+        for (Column c : columns) names.add(c.name());
+        String fragment = buildPromptFragment(columns);
+        return new TableSchema(tableName, List.copyOf(columns), Collections.unmodifiableList(names), fragment,
+                fingerprint(tableName + "\n" + fragment));
+    }
+
+    private static String fingerprint(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String buildPromptFragment(List<Column> columns) {
+        if (columns.isEmpty()) return "(No columns available)\n";
+        StringBuilder sb = new StringBuilder();
+        sb.append("This table contains the following columns:\n");
+        for (Column c : columns) {
+            sb.append(" - ").append(c.name());
+            if (c.type() != null) sb.append(" (").append(c.type()).append(")");
+            sb.append("\n");
+        }
+        sb.append("\nWhen answering the question, use ONLY these columns.\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.vedant.querybot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Size-bounded cache of {@link TableSchema} descriptors keyed by table name.
+ * Descriptors are put here at upload time (from {@link TableUploadedEvent}), so the query path
+ * does no JSON parsing or prompt building. Tables loaded before a restart, or by another instance,
+ * are described once from information_schema on first use. A dropped table's descriptor is
+ * evicted on {@link TableDroppedEvent}.
+ */
+@Component
+public class TableSchemaCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TableSchemaCache.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, TableSchema> cache;
+
+    public TableSchemaCache(
+            JdbcTemplate jdbcTemplate,
+            @Value("${query.schema-cache.max-tables:256}") long maxTables
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder().maximumSize(Math.max(1, maxTables)).build();
+    }
+
+    // Descriptor for a table; originalToColumn (header -> column, may be null) supplies the original names on a miss
+    public TableSchema get(String tableName, Map<String, String> originalToColumn) {
+        return cache.get(tableName, t -> load(t, originalToColumn));
+    }
+
+    // A re-created table replaces the old descriptor; without one it is described again on next use
+    @EventListener
+    public void onTableUploaded(TableUploadedEvent event) {
+        if (event.schema() != null) {
+            cache.put(event.schema().tableName(), event.schema());
+        } else if (event.metadata() != null && event.metadata().getTableName() != null) {
+            evict(event.metadata().getTableName());
+        }
+    }
+
+    @EventListener
+    public void onTableDropped(TableDroppedEvent event) {
+        evict(event.tableName());
+    }
+
+    public void evict(String tableName) {
+        if (tableName != null) cache.invalidate(tableName);
+    }
+
+    private TableSchema load(String tableName, Map<String, String> originalToColumn) {
+        Map<String, String> columnToOriginal = new HashMap<>();
+        if (originalToColumn != null) originalToColumn.forEach((orig, col) -> columnToOriginal.putIfAbsent(col, orig));
+
+        List<TableSchema.Column> columns = new ArrayList<>();
+        try {
+            jdbcTemplate.query(
+                    "SELECT column_name, data_type FROM information_schema.columns " +
+                            "WHERE table_schema = current_schema() AND table_name = ? ORDER BY ordinal_position",
+                    rs -> {
+                        String name = rs.getString(1);
+                        columns.add(new TableSchema.Column(name, columnToOriginal.getOrDefault(name, name), rs.getString(2)));
+                    },
+                    tableName);
+        } catch (Exception ex) {
+            log.warn("Failed to read columns of {} from information_schema", tableName, ex);
+        }
+        if (columns.isEmpty() && originalToColumn != null) {
+            // no catalog access: fall back to the stored mapping without types
+            originalToColumn.forEach((orig, col) -> columns.add(new TableSchema.Column(col, orig, null)));
+        }
+        return TableSchema.of(tableName, columns);
+    }
+}
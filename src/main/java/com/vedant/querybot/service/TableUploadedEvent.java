@@ -0,0 +1,11 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+
+/**
+ * Published by FileService after the metadata of a newly loaded table has been saved.
+ * Caches keyed on "the latest table" listen for it instead of polling the database;
+ * schema describes the table exactly as it was created (final column types).
+ */
+public record TableUploadedEvent(UploadedTableMetadata metadata, TableSchema schema) {
+}
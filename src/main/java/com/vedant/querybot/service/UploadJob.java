@@ -0,0 +1,137 @@
+package com.vedant.querybot.service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of one asynchronous upload. Counters are updated by the worker thread
+ * and read by status polls, so everything here is thread-safe.
+ */
+public class UploadJob implements UploadProgress {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+    private final String originalFilename;
+    private final Path spoolFile;
+    private final String sheet;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String tableName;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    public UploadJob(String id, String originalFilename, Path spoolFile, String sheet) {
+        this.id = id;
+        this.originalFilename = originalFilename;
+        this.spoolFile = spoolFile;
+        this.sheet = sheet;
+    }
+
+    /* ---------- UploadProgress (called from the worker) ---------- */
+
+    @Override
+    public void rowsParsed(long rows) {
+        rowsParsed.addAndGet(rows);
+    }
+
+    @Override
+    public void rowsInserted(long rows) {
+        rowsInserted.addAndGet(rows);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    /* ---------- lifecycle ---------- */
+
+    void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    // Returns false if the job was cancelled while still queued
+    synchronized boolean markRunning() {
+        if (status != Status.QUEUED) return false;
+        status = Status.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void markCompleted(String tableName) {
+        this.tableName = tableName;
+        finish(Status.COMPLETED);
+    }
+
+    synchronized void markFailed(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    synchronized void markCancelled() {
+        finish(Status.CANCELLED);
+    }
+
+    // Request cancellation. A queued job is removed from the executor; a running job
+    // stops at the next chunk boundary. Returns true if the job was still queued.
+    synchronized boolean cancel() {
+        if (isFinished()) return false;
+        cancelRequested = true;
+        if (status == Status.QUEUED) {
+            Future<?> f = future;
+            if (f != null) f.cancel(false);
+            finish(Status.CANCELLED);
+            return true;
+        }
+        return false;
+    }
+
+    private void finish(Status terminal) {
+        if (isFinished()) return;
+        status = terminal;
+        finishedAt = Instant.now();
+    }
+
+    public boolean isFinished() {
+        Status s = status;
+        return s == Status.COMPLETED || s == Status.FAILED || s == Status.CANCELLED;
+    }
+
+    /* ---------- read side ---------- */
+
+    public String getId() { return id; }
+    public String getOriginalFilename() { return originalFilename; }
+    public Path getSpoolFile() { return spoolFile; }
+    public String getSheet() { return sheet; }
+    public Status getStatus() { return status; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getTableName() { return tableName; }
+    public String getError() { return error; }
+    public long getRowsParsed() { return rowsParsed.get(); }
+    public long getRowsInserted() { return rowsInserted.get(); }
+
+    // Wall time spent running (up to now while still running)
+    public Duration getElapsed() {
+        Instant start = startedAt;
+        if (start == null) return Duration.ZERO;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return Duration.between(start, end);
+    }
+
+    public double getRowsPerSecond() {
+        long millis = getElapsed().toMillis();
+        return millis <= 0 ? 0.0 : getRowsInserted() * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,141 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploads in the background so the servlet thread only spools the file to disk.
+ * Ingestion uses its own small, bounded pool (separate from Tomcat's request threads),
+ * so large imports cannot starve query traffic; when the queue is full new uploads are rejected.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobService.class);
+
+    private final FileService fileService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    public UploadJobService(
+            FileService fileService,
+            @Value("${upload.jobs.threads:2}") int threads,
+            @Value("${upload.jobs.queue-capacity:16}") int queueCapacity,
+            @Value("${upload.jobs.retention-minutes:60}") long retentionMinutes
+    ) {
+        this.fileService = fileService;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "upload-" + seq.incrementAndGet());
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Spool the multipart body to a temp file (it is deleted when the request ends) and queue the import.
+    // sheet optionally selects the Excel worksheet. Throws RejectedExecutionException when the queue is full.
+    public UploadJob submit(MultipartFile file, String sheet) throws IOException {
+        pruneFinished();
+        Path spool = Files.createTempFile("querybot-upload-", ".tmp");
+        try {
+            file.transferTo(spool);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(spool);
+            throw ex;
+        }
+
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), file.getOriginalFilename(), spool, sheet);
+        jobs.put(job.getId(), job);
+        try {
+            job.attach(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(spool);
+            throw ex;
+        }
+        logger.info("Queued upload job {} for {}", job.getId(), job.getOriginalFilename());
+        return job;
+    }
+
+    public Optional<UploadJob> get(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public Optional<UploadJob> cancel(String id) {
+        UploadJob job = jobs.get(id);
+        if (job == null) return Optional.empty();
+        if (job.cancel()) {
+            // never started: nothing else will clean up the spooled file
+            deleteSpool(job);
+        }
+        return Optional.of(job);
+    }
+
+    private void run(UploadJob job) {
+        try {
+            if (!job.markRunning()) return;
+            UploadedTableMetadata meta = fileService.processUpload(
+                    job.getOriginalFilename(), job.getSpoolFile(), job.getSheet(), job);
+            job.markCompleted(meta.getTableName());
+            logger.info("Upload job {} completed: {} rows into {} ({} rows/s)", job.getId(),
+                    job.getRowsInserted(), meta.getTableName(), String.format("%.0f", job.getRowsPerSecond()));
+        } catch (CancellationException ex) {
+            job.markCancelled();
+            logger.info("Upload job {} cancelled after {} rows", job.getId(), job.getRowsInserted());
+        } catch (Exception ex) {
+            logger.error("Upload job {} failed", job.getId(), ex);
+            job.markFailed(ex.getMessage());
+        } finally {
+            deleteSpool(job);
+        }
+    }
+
+    // Forget finished jobs once they are older than the retention window
+    private void pruneFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(j -> j.isFinished() && j.getFinishedAt() != null && j.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void deleteSpool(UploadJob job) {
+        try {
+            Files.deleteIfExists(job.getSpoolFile());
+        } catch (IOException ex) {
+            logger.warn("Could not delete spooled upload {}", job.getSpoolFile(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(UploadJob::cancel);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
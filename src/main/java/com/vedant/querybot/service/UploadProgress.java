@@ -0,0 +1,20 @@
+package com.vedant.querybot.service;
+
+/**
+ * Progress sink for a running upload. FileService reports counts once per chunk
+ * and checks for cancellation between chunks.
+ */
+public interface UploadProgress {
+
+    UploadProgress NONE = new UploadProgress() {
+        @Override public void rowsParsed(long rows) {}
+        @Override public void rowsInserted(long rows) {}
+        @Override public boolean isCancelled() { return false; }
+    };
+
+    void rowsParsed(long rows);
+
+    void rowsInserted(long rows);
+
+    boolean isCancelled();
+}
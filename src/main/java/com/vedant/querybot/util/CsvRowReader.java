@@ -0,0 +1,75 @@
+package com.vedant.querybot.util;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.RFC4180ParserBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams a CSV file record by record with OpenCSV's readNext().
+ * The first record is treated as the header row; fully blank lines are skipped.
+ *
+ * Uses OpenCSV's RFC 4180 parser so quotes are escaped only by doubling and a backslash is an
+ * ordinary character, the same rules {@link ParallelCsvReader} applies to large files.
+ */
+public class CsvRowReader implements RowReader {
+
+    private final CSVReader reader;
+    private List<String> headers;
+
+    public CsvRowReader(InputStream in) {
+        this.reader = new CSVReaderBuilder(new InputStreamReader(in, StandardCharsets.UTF_8))
+                .withCSVParser(new RFC4180ParserBuilder().build())
+                .build();
+    }
+
+    @Override
+    public List<String> getHeaders() throws IOException {
+        if (headers == null) {
+            String[] first = next();
+            if (first == null) {
+                headers = Collections.emptyList();
+            } else {
+                String[] names = new String[first.length];
+                for (int c = 0; c < first.length; c++) {
+                    names[c] = first[c] != null ? first[c] : ("col" + c);
+                }
+                headers = Collections.unmodifiableList(Arrays.asList(names));
+            }
+        }
+        return headers;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        int width = getHeaders().size();
+        if (width == 0) return null;
+        String[] raw = next();
+        // skip fully blank lines
+        while (raw != null && raw.length == 1 && (raw[0] == null || raw[0].isEmpty())) raw = next();
+        if (raw == null) return null;
+        // align to header width: extra cells are dropped, missing cells stay null
+        return raw.length == width ? raw : Arrays.copyOf(raw, width);
+    }
+
+    private String[] next() throws IOException {
+        try {
+            return reader.readNext();
+        } catch (CsvValidationException e) {
+            throw new IOException("Invalid CSV at line " + reader.getLinesRead() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
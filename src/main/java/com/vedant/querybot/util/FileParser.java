@@ -1,77 +1,67 @@
 package com.vedant.querybot.util;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvException;
 import org.apache.poi.ss.usermodel.*;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.*;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
- * Parses uploaded files into a list of maps (each map is a row column->string).
+ * Parses uploaded files into rows of column->string.
+ * {@link #open} streams rows through a {@link RowReader}.
  * Uses OpenCSV, Jackson, Apache POI. Errors bubble up as IOException.
  */
 public class FileParser {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
-
-    public static List<Map<String, String>> parse(MultipartFile file) throws IOException {
-        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
-        if (name.endsWith(".csv")) return parseCsv(file.getInputStream());
-        if (name.endsWith(".json")) return parseJson(file.getInputStream());
-        if (name.endsWith(".xlsx") || name.endsWith(".xls")) return parseExcel(file.getInputStream());
-        // fallback: try CSV
-        return parseCsv(file.getInputStream());
-    }
-
-    private static List<Map<String, String>> parseCsv(InputStream in) throws IOException {
-        try (CSVReader reader = new CSVReader(new InputStreamReader(in))) {
-            List<String[]> all = reader.readAll();
-            if (all.isEmpty()) return Collections.emptyList();
-            String[] headers = all.get(0);
-            List<Map<String, String>> rows = new ArrayList<>();
-            for (int i = 1; i < all.size(); i++) {
-                String[] row = all.get(i);
-                Map<String, String> map = new LinkedHashMap<>();
-                for (int c = 0; c < headers.length; c++) {
-                    String key = headers[c] != null ? headers[c] : ("col" + c);
-                    String val = c < row.length ? row[c] : null;
-                    map.put(key, val);
-                }
-                rows.add(map);
+    // Open a streaming row reader for an upload spooled to disk. CSV is read record by record
+    // (large files are memory-mapped and parsed in parallel, see ParseOptions), JSON arrays / NDJSON
+    // and .xlsx sheets are streamed; legacy .xls is still parsed up front and replayed through the reader.
+    public static RowReader open(String originalFilename, Path path, ParseOptions options) throws IOException {
+        String name = originalFilename != null ? originalFilename.toLowerCase() : "";
+        if (isJson(name)) {
+            return new JsonRowReader(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        }
+        if (name.endsWith(".xlsx")) return new XlsxRowReader(path, options.sheetName());
+        if (name.endsWith(".xls")) {
+            try (Workbook workbook = WorkbookFactory.create(path.toFile(), null, true)) {
+                return new ListRowReader(parseSheet(selectSheet(workbook, options.sheetName())));
             }
-            return rows;
-        } catch (CsvException e) {
-            throw new RuntimeException(e);
         }
+        // CSV and fallback
+        if (options.parallelPool() != null && Files.size(path) >= options.parallelMinBytes()) {
+            return new ParallelCsvReader(path, options.parallelPool(), options.rangeBytes(),
+                    options.maxInflightBytes(), options.ordered());
+        }
+        return new CsvRowReader(Files.newInputStream(path));
     }
 
-    private static List<Map<String, String>> parseJson(InputStream in) throws IOException {
-        // Expecting an array of objects: [ { ... }, { ...} ]
-        List<Map<String, Object>> raw = mapper.readValue(in, new TypeReference<>() {});
-        List<Map<String, String>> rows = new ArrayList<>();
-        for (Map<String, Object> r : raw) {
-            Map<String, String> map = new LinkedHashMap<>();
-            for (Map.Entry<String, Object> e : r.entrySet()) {
-                map.put(e.getKey(), e.getValue() != null ? e.getValue().toString() : null);
-            }
-            rows.add(map);
+    private static boolean isJson(String name) {
+        return name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl");
+    }
+
+    // Sheet by name (or 1-based position); first sheet when no name is given
+    private static Sheet selectSheet(Workbook workbook, String sheetName) throws IOException {
+        if (sheetName == null || sheetName.isBlank()) {
+            return workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : null;
         }
-        return rows;
+        Sheet sheet = workbook.getSheet(sheetName);
+        if (sheet == null && sheetName.trim().matches("\\d+")) {
+            int idx = Integer.parseInt(sheetName.trim()) - 1;
+            if (idx >= 0 && idx < workbook.getNumberOfSheets()) sheet = workbook.getSheetAt(idx);
+        }
+        if (sheet == null) throw new IOException("Sheet not found: " + sheetName);
+        return sheet;
     }
 
-    private static List<Map<String, String>> parseExcel(InputStream in) throws IOException {
-        Workbook workbook = WorkbookFactory.create(in);
-        Sheet sheet = workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : null;
+    private static List<Map<String, String>> parseSheet(Sheet sheet) {
         if (sheet == null) return Collections.emptyList();
         Iterator<Row> rowsIt = sheet.iterator();
         if (!rowsIt.hasNext()) return Collections.emptyList();
         Row headerRow = rowsIt.next();
         List<String> headers = new ArrayList<>();
-        for (Cell c : headerRow) headers.add(c.getStringCellValue());
+        for (Cell c : headerRow) headers.add(cellToString(c));
 
         List<Map<String, String>> rows = new ArrayList<>();
         while (rowsIt.hasNext()) {
@@ -88,15 +78,47 @@ public class FileParser {
 
     private static String cellToString(Cell c) {
         if (c == null) return null;
-        return switch (c.getCellType()) {
+        CellType type = c.getCellType();
+        // formulas yield their cached result, not the formula text
+        if (type == CellType.FORMULA) type = c.getCachedFormulaResultType();
+        return switch (type) {
             case STRING -> c.getStringCellValue();
             case NUMERIC -> {
                 if (DateUtil.isCellDateFormatted(c)) yield c.getLocalDateTimeCellValue().toString();
                 else yield Double.toString(c.getNumericCellValue());
             }
             case BOOLEAN -> Boolean.toString(c.getBooleanCellValue());
-            case FORMULA -> c.getCellFormula();
             default -> null;
         };
     }
+
+    // Replays already-parsed rows; headers are the union of keys in first-seen order
+    private static class ListRowReader implements RowReader {
+        private final Iterator<Map<String, String>> it;
+        private final List<String> headers;
+
+        ListRowReader(List<Map<String, String>> rows) {
+            LinkedHashSet<String> keys = new LinkedHashSet<>();
+            for (Map<String, String> r : rows) keys.addAll(r.keySet());
+            this.headers = Collections.unmodifiableList(new ArrayList<>(keys));
+            this.it = rows.iterator();
+        }
+
+        @Override
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public String[] readRow() {
+            if (!it.hasNext()) return null;
+            Map<String, String> r = it.next();
+            String[] row = new String[headers.size()];
+            for (int c = 0; c < row.length; c++) row[c] = r.get(headers.get(c));
+            return row;
+        }
+
+        @Override
+        public void close() {}
+    }
 }
@@ -0,0 +1,139 @@
+package com.vedant.querybot.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * Streams JSON records with Jackson's token parser, one object at a time.
+ * Accepts a top-level array of objects ({@code [ {...}, {...} ]}) or a sequence of
+ * root-level objects, i.e. NDJSON / JSON Lines; the format is detected from the first token.
+ * Nested objects are flattened into dotted column names ({@code {"a":{"b":1}}} -> {@code a.b}),
+ * arrays are kept as their JSON text.
+ *
+ * Headers are discovered while reading: a key first seen in a later record is appended to
+ * {@link #getHeaders()}, and each row is aligned with the headers as they were when it was returned.
+ */
+public class JsonRowReader implements RowReader {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    // PostgreSQL tables cannot have more columns than this
+    private static final int MAX_COLUMNS = 1600;
+
+    private final JsonParser parser;
+    private final boolean array;
+    private final List<String> headers = new ArrayList<>();
+    private final List<String> headersView = Collections.unmodifiableList(headers);
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private boolean positioned; // parser already sits on the START_OBJECT of the next record
+    private boolean done;
+    private String[] first;     // first record, read up front so the initial headers are known
+
+    public JsonRowReader(InputStream in) throws IOException {
+        this.parser = FACTORY.createParser(in);
+        try {
+            JsonToken t = parser.nextToken();
+            if (t == null) {
+                this.array = false;
+                this.done = true;
+            } else if (t == JsonToken.START_ARRAY) {
+                this.array = true;
+            } else if (t == JsonToken.START_OBJECT) {
+                this.array = false;
+                this.positioned = true;
+            } else {
+                throw new IOException("Expected a JSON array of objects or one object per line, found " + t);
+            }
+            this.first = nextRecord();
+        } catch (IOException | RuntimeException ex) {
+            parser.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<String> getHeaders() {
+        return headersView;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        String[] row;
+        if (first != null) {
+            row = first;
+            first = null;
+        } else {
+            row = nextRecord();
+        }
+        if (row == null) return null;
+        return row.length == headers.size() ? row : Arrays.copyOf(row, headers.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private String[] nextRecord() throws IOException {
+        if (done) return null;
+        JsonToken t = positioned ? parser.currentToken() : parser.nextToken();
+        positioned = false;
+        if (t == null || (array && t == JsonToken.END_ARRAY)) {
+            done = true;
+            return null;
+        }
+        if (t != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object at line " + parser.currentTokenLocation().getLineNr()
+                    + ", found " + t);
+        }
+        return readObject(null, new String[headers.size()]);
+    }
+
+    // Positioned on START_OBJECT; consumes through the matching END_OBJECT
+    private String[] readObject(String prefix, String[] values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = prefix == null ? parser.currentName() : prefix + "." + parser.currentName();
+            JsonToken v = parser.nextToken();
+            if (v == JsonToken.START_OBJECT) {
+                values = readObject(key, values);
+                continue;
+            }
+            String text = switch (v) {
+                case START_ARRAY -> arrayAsJson();
+                case VALUE_NULL -> null;
+                default -> parser.getText();
+            };
+            int col = column(key);
+            if (col >= values.length) values = Arrays.copyOf(values, headers.size());
+            values[col] = text;
+        }
+        return values;
+    }
+
+    // Positioned on START_ARRAY; re-serializes the array (nested objects included) as compact JSON
+    private String arrayAsJson() throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = FACTORY.createGenerator(out)) {
+            gen.copyCurrentStructure(parser);
+        }
+        return out.toString();
+    }
+
+    private int column(String key) throws IOException {
+        Integer col = columns.get(key);
+        if (col != null) return col;
+        if (headers.size() >= MAX_COLUMNS) {
+            throw new IOException("JSON records have more than " + MAX_COLUMNS + " distinct keys");
+        }
+        headers.add(key);
+        columns.put(key, headers.size() - 1);
+        return headers.size() - 1;
+    }
+}
@@ -0,0 +1,305 @@
+package com.vedant.querybot.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parses a CSV file on disk in parallel.
+ * The file is memory-mapped and cut into byte ranges that start on record boundaries:
+ *  1. every raw range counts its quote characters (in parallel),
+ *  2. a prefix sum of those counts gives the quote state at each raw range start,
+ *  3. each range moves its start forward to the first newline outside quotes,
+ * after which ranges are parsed independently on a ForkJoinPool.
+ * Parsed ranges are handed out in file order or as they complete. The number of ranges in flight is
+ * derived from a byte budget rather than the pool size, so memory per upload stays bounded however
+ * many cores the host has.
+ *
+ * Follows RFC 4180 (quotes escaped by doubling, LF or CRLF line endings). Fully blank lines are skipped.
+ */
+public class ParallelCsvReader implements RowReader {
+
+    private static final int SCAN_WINDOW = 1 << 20;
+    private static final int MIN_RANGE_BYTES = 4096;
+
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final boolean ordered;
+    private final int window;
+    private final List<String> headers;
+    private final long[] bounds;            // range i covers [bounds[i], bounds[i + 1])
+
+    private int nextToSubmit;
+    private int inFlight;
+    private final ArrayDeque<ForkJoinTask<List<String[]>>> pending = new ArrayDeque<>();
+    private final BlockingQueue<ForkJoinTask<List<String[]>>> completed = new LinkedBlockingQueue<>();
+
+    private List<String[]> current = Collections.emptyList();
+    private int currentPos;
+
+    public ParallelCsvReader(Path path, ForkJoinPool pool, int rangeBytes, long maxInflightBytes, boolean ordered)
+            throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.pool = pool;
+        this.ordered = ordered;
+        rangeBytes = Math.max(MIN_RANGE_BYTES, rangeBytes);
+        this.window = windowFor(maxInflightBytes, rangeBytes);
+        try {
+            long size = channel.size();
+            long[] headerEnd = new long[1];
+            this.headers = parseHeader(size, headerEnd);
+            this.bounds = computeBounds(headerEnd[0], size, rangeBytes);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        if (headers.isEmpty()) return null;
+        while (currentPos >= current.size()) {
+            List<String[]> next = nextRange();
+            if (next == null) return null;
+            current = next;
+            currentPos = 0;
+        }
+        String[] row = current.get(currentPos);
+        current.set(currentPos++, null); // let parsed rows be collected as they are consumed
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending.forEach(t -> t.cancel(true));
+        pending.clear();
+        channel.close();
+    }
+
+    /* ---------- scheduling ---------- */
+
+    /**
+     * Ranges that may be submitted ahead of the consumer. The range currently being read also
+     * counts against the budget; at least one range is always in flight so parsing makes progress.
+     */
+    static int windowFor(long maxInflightBytes, int rangeBytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInflightBytes / rangeBytes - 1));
+    }
+
+    private List<String[]> nextRange() throws IOException {
+        fillWindow();
+        if (inFlight == 0) return null;
+        ForkJoinTask<List<String[]>> task;
+        try {
+            task = ordered ? pending.pollFirst() : completed.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing CSV", ex);
+        }
+        if (!ordered) pending.remove(task);
+        inFlight--;
+        try {
+            return task.join();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            throw new IOException("Parallel CSV parse failed: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void fillWindow() {
+        while (inFlight < window && nextToSubmit < bounds.length - 1) {
+            final long start = bounds[nextToSubmit];
+            final long end = bounds[nextToSubmit + 1];
+            nextToSubmit++;
+            ForkJoinTask<List<String[]>> task = new RecursiveTask<>() {
+                @Override
+                protected List<String[]> compute() {
+                    try {
+                        return parseRange(start, end);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    } finally {
+                        if (!ordered) completed.add(this);
+                    }
+                }
+            };
+            pending.addLast(task);
+            pool.execute(task);
+            inFlight++;
+        }
+    }
+
+    /* ---------- boundary detection ---------- */
+
+    private long[] computeBounds(long dataStart, long size, long rangeBytes) throws IOException {
+        if (dataStart >= size) return new long[] {dataStart};
+        int n = (int) Math.max(1, (size - dataStart + rangeBytes - 1) / rangeBytes);
+        long[] rawStarts = new long[n];
+        for (int i = 0; i < n; i++) rawStarts[i] = dataStart + i * rangeBytes;
+
+        // 1. quote counts per raw range
+        List<ForkJoinTask<Long>> counts = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            long from = rawStarts[i];
+            long to = i + 1 < n ? rawStarts[i + 1] : size;
+            counts.add(pool.submit(() -> countQuotes(from, to)));
+        }
+        // 2. quote state (inside/outside) at each raw start
+        boolean[] inQuotes = new boolean[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            inQuotes[i] = (total & 1) == 1;
+            total += join(counts.get(i));
+        }
+        // 3. first record start at or after each raw start
+        List<ForkJoinTask<Long>> starts = new ArrayList<>(n);
+        for (int i = 1; i < n; i++) {
+            long from = rawStarts[i];
+            boolean q = inQuotes[i];
+            starts.add(pool.submit(() -> findRecordStart(from, size, q)));
+        }
+        long[] bounds = new long[n + 1];
+        bounds[0] = dataStart;
+        for (int i = 1; i < n; i++) bounds[i] = join(starts.get(i - 1));
+        bounds[n] = size;
+        return bounds;
+    }
+
+    private static long join(ForkJoinTask<Long> t) throws IOException {
+        try {
+            return t.join();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private long countQuotes(long from, long to) {
+        long count = 0;
+        for (long pos = from; pos < to; pos += SCAN_WINDOW) {
+            MappedByteBuffer buf = map(pos, Math.min(SCAN_WINDOW, to - pos));
+            int limit = buf.limit();
+            for (int i = 0; i < limit; i++) {
+                if (buf.get(i) == '"') count++;
+            }
+        }
+        return count;
+    }
+
+    // Scan forward from a position with known quote state to the byte after the next unquoted newline
+    private long findRecordStart(long from, long size, boolean inQuotes) {
+        for (long pos = from; pos < size; pos += SCAN_WINDOW) {
+            MappedByteBuffer buf = map(pos, Math.min(SCAN_WINDOW, size - pos));
+            int limit = buf.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = buf.get(i);
+                if (b == '"') inQuotes = !inQuotes;
+                else if (b == '\n' && !inQuotes) return pos + i + 1;
+            }
+        }
+        return size;
+    }
+
+    private MappedByteBuffer map(long pos, long len) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /* ---------- record parsing ---------- */
+
+    private List<String> parseHeader(long size, long[] headerEnd) throws IOException {
+        long end = findRecordStart(0, size, false);
+        headerEnd[0] = end;
+        if (end == 0) return Collections.emptyList();
+        List<String[]> rows = parseRange(0, end);
+        if (rows.isEmpty()) return Collections.emptyList();
+        String[] first = rows.get(0);
+        String[] names = new String[first.length];
+        for (int c = 0; c < first.length; c++) names[c] = first[c] != null ? first[c] : ("col" + c);
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    private List<String[]> parseRange(long start, long end) throws IOException {
+        int len = (int) (end - start);
+        if (len <= 0) return new ArrayList<>();
+        byte[] b = new byte[len];
+        map(start, len).get(b);
+
+        int width = headers == null ? -1 : headers.size();
+        List<String[]> rows = new ArrayList<>(Math.max(16, len / 64));
+        List<String> fields = new ArrayList<>(Math.max(8, width));
+        byte[] scratch = null;
+        int pos = 0;
+        while (pos < len) {
+            fields.clear();
+            boolean endOfRecord = false;
+            while (!endOfRecord) {
+                String value;
+                if (pos < len && b[pos] == '"') {
+                    // quoted field; copy only when it contains doubled quotes
+                    int s = ++pos;
+                    int n = 0;
+                    boolean escaped = false;
+                    while (pos < len) {
+                        if (b[pos] == '"') {
+                            if (pos + 1 < len && b[pos + 1] == '"') {
+                                if (!escaped) {
+                                    if (scratch == null || scratch.length < len) scratch = new byte[len];
+                                    System.arraycopy(b, s, scratch, 0, pos - s);
+                                    n = pos - s;
+                                    escaped = true;
+                                }
+                                scratch[n++] = '"';
+                                pos += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        if (escaped) scratch[n++] = b[pos];
+                        pos++;
+                    }
+                    value = escaped
+                            ? new String(scratch, 0, n, StandardCharsets.UTF_8)
+                            : new String(b, s, pos - s, StandardCharsets.UTF_8);
+                    pos++; // closing quote
+                    // tolerate stray characters between the closing quote and the delimiter
+                    int tail = pos;
+                    while (pos < len && b[pos] != ',' && b[pos] != '\n') pos++;
+                    int tailEnd = pos > tail && b[pos - 1] == '\r' ? pos - 1 : pos;
+                    if (tailEnd > tail) value = value + new String(b, tail, tailEnd - tail, StandardCharsets.UTF_8);
+                } else {
+                    int s = pos;
+                    while (pos < len && b[pos] != ',' && b[pos] != '\n') pos++;
+                    int e = pos > s && b[pos - 1] == '\r' ? pos - 1 : pos;
+                    value = new String(b, s, e - s, StandardCharsets.UTF_8);
+                }
+                fields.add(value);
+                if (pos < len && b[pos] == ',') {
+                    pos++;
+                } else {
+                    pos++; // newline (or past the end)
+                    endOfRecord = true;
+                }
+            }
+            if (fields.size() == 1 && fields.get(0).isEmpty()) continue; // blank line
+            String[] row = new String[width < 0 ? fields.size() : width];
+            for (int c = 0; c < row.length && c < fields.size(); c++) row[c] = fields.get(c);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+package com.vedant.querybot.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Knobs for FileParser.open(). When {@code parallelPool} is set, CSV files of at least
+ * {@code parallelMinBytes} are parsed by {@link ParallelCsvReader} in ranges of {@code rangeBytes}, holding at most
+ * {@code maxInflightBytes} of ranges at once;
+ * {@code ordered} keeps rows in file order, otherwise ranges are delivered as they finish.
+ * {@code sheetName} picks the Excel worksheet to import (null = first sheet).
+ */
+public record ParseOptions(ForkJoinPool parallelPool, long parallelMinBytes, int rangeBytes, long maxInflightBytes,
+                           boolean ordered, String sheetName) {
+
+    public static final ParseOptions SEQUENTIAL = new ParseOptions(null, Long.MAX_VALUE, 0, 0, true, null);
+
+    public ParseOptions withSheet(String sheet) {
+        return new ParseOptions(parallelPool, parallelMinBytes, rangeBytes, maxInflightBytes, ordered, sheet);
+    }
+}
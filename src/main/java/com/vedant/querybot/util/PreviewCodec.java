@@ -0,0 +1,225 @@
+package com.vedant.querybot.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact encoding of result previews for the text column query_history.result_preview.
+ *
+ * Layout: {@code "pv1:" + base64(deflate(body))}, where body is the column names once, the row count,
+ * then each column as a type tag, a null bitmap and its non-null values back to back
+ * (zigzag varints for integers, 8-byte doubles, length-prefixed UTF-8 for text and decimals).
+ * Storing by column keeps similar values adjacent, which is what deflate compresses best.
+ *
+ * {@link #decode} also reads the legacy format (a JSON array of row objects), so previews written
+ * before this codec remain readable without a data migration.
+ */
+public final class PreviewCodec {
+
+    public static final String PREFIX = "pv1:";
+
+    private static final byte NULLS = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte DECIMAL = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte TEXT = 5;
+
+    private static final ObjectMapper LEGACY = new ObjectMapper();
+    private static final TypeReference<List<Map<String, Object>>> ROWS = new TypeReference<>() {};
+
+    private PreviewCodec() {}
+
+    public static String encode(List<Map<String, Object>> rows) {
+        List<String> columns = columns(rows);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            writeVarint(out, columns.size());
+            for (String c : columns) writeString(out, c);
+            writeVarint(out, rows.size());
+            for (String c : columns) writeColumn(out, c, rows);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    // Rows in column order; null or blank input is an empty preview
+    public static List<Map<String, Object>> decode(String stored) {
+        if (stored == null || stored.isBlank()) return List.of();
+        try {
+            if (!stored.startsWith(PREFIX)) return LEGACY.readValue(stored, ROWS);
+            byte[] raw = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(raw)))) {
+                int columnCount = readVarint(in);
+                String[] columns = new String[columnCount];
+                for (int c = 0; c < columnCount; c++) columns[c] = readString(in);
+                int rowCount = readVarint(in);
+                List<Map<String, Object>> rows = new ArrayList<>(rowCount);
+                for (int r = 0; r < rowCount; r++) rows.add(new LinkedHashMap<>());
+                for (String c : columns) readColumn(in, c, rows);
+                return rows;
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unreadable result preview", ex);
+        }
+    }
+
+    /**
+     * True when {@link #decode} of {@link #encode} gives back the same values (integers widened to Long):
+     * every column holds only integers, doubles, decimals, booleans or strings, one kind per column.
+     * Temporal values, floats and driver-specific types are stored as text and do not round-trip.
+     */
+    public static boolean encodesExactly(List<Map<String, Object>> rows) {
+        for (String column : columns(rows)) {
+            byte tag = tag(column, rows);
+            for (Map<String, Object> row : rows) {
+                Object v = row.get(column);
+                if (v == null) continue;
+                boolean exact = switch (tag) {
+                    case LONG, BOOLEAN -> true;
+                    case DOUBLE -> v instanceof Double;
+                    case DECIMAL -> v instanceof BigDecimal;
+                    default -> v instanceof String;
+                };
+                if (!exact) return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> columns(List<Map<String, Object>> rows) {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) names.addAll(row.keySet());
+        return new ArrayList<>(names);
+    }
+
+    private static void writeColumn(DataOutputStream out, String column, List<Map<String, Object>> rows) throws IOException {
+        byte tag = tag(column, rows);
+        out.writeByte(tag);
+        if (tag == NULLS) return;
+        byte[] nulls = new byte[(rows.size() + 7) >>> 3];
+        for (int r = 0; r < rows.size(); r++) {
+            if (rows.get(r).get(column) == null) nulls[r >>> 3] |= (byte) (1 << (r & 7));
+        }
+        out.write(nulls);
+        for (Map<String, Object> row : rows) {
+            Object v = row.get(column);
+            if (v == null) continue;
+            switch (tag) {
+                case LONG -> writeVarlong(out, ((Number) v).longValue());
+                case DOUBLE -> out.writeDouble(((Number) v).doubleValue());
+                case DECIMAL -> writeString(out, v instanceof BigDecimal bd ? bd.toPlainString() : v.toString());
+                case BOOLEAN -> out.writeBoolean((Boolean) v);
+                default -> writeString(out, text(v));
+            }
+        }
+    }
+
+    // One type per column: the narrowest tag every non-null value fits, TEXT otherwise
+    private static byte tag(String column, List<Map<String, Object>> rows) {
+        byte tag = NULLS;
+        for (Map<String, Object> row : rows) {
+            Object v = row.get(column);
+            if (v == null) continue;
+            byte t = v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte ? LONG
+                    : v instanceof Double || v instanceof Float ? DOUBLE
+                    : v instanceof BigDecimal || v instanceof BigInteger ? DECIMAL
+                    : v instanceof Boolean ? BOOLEAN
+                    : TEXT;
+            if (tag == NULLS) tag = t;
+            else if (tag != t) return TEXT;
+        }
+        return tag;
+    }
+
+    private static void readColumn(DataInputStream in, String column, List<Map<String, Object>> rows) throws IOException {
+        byte tag = in.readByte();
+        if (tag == NULLS) {
+            for (Map<String, Object> row : rows) row.put(column, null);
+            return;
+        }
+        byte[] nulls = new byte[(rows.size() + 7) >>> 3];
+        in.readFully(nulls);
+        for (int r = 0; r < rows.size(); r++) {
+            Object v = null;
+            if ((nulls[r >>> 3] & (1 << (r & 7))) == 0) {
+                v = switch (tag) {
+                    case LONG -> readVarlong(in);
+                    case DOUBLE -> in.readDouble();
+                    case DECIMAL -> new BigDecimal(readString(in));
+                    case BOOLEAN -> in.readBoolean();
+                    case TEXT -> readString(in);
+                    default -> throw new IOException("Unknown column tag " + tag);
+                };
+            }
+            rows.get(r).put(column, v);
+        }
+    }
+
+    // JDBC temporal values as ISO-8601 rather than their java.sql toString forms
+    private static String text(Object v) {
+        if (v instanceof java.sql.Timestamp ts) return ts.toLocalDateTime().toString();
+        if (v instanceof java.sql.Date d) return d.toLocalDate().toString();
+        if (v instanceof java.sql.Time t) return t.toLocalTime().toString();
+        return v.toString();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[readVarint(in)];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(DataOutputStream out, int v) throws IOException {
+        writeUnsigned(out, v & 0xffffffffL);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        long v = readUnsigned(in);
+        if (v > Integer.MAX_VALUE) throw new IOException("Length out of range");
+        return (int) v;
+    }
+
+    // zigzag so small negative numbers stay short
+    private static void writeVarlong(DataOutputStream out, long v) throws IOException {
+        writeUnsigned(out, (v << 1) ^ (v >> 63));
+    }
+
+    private static long readVarlong(DataInputStream in) throws IOException {
+        long z = readUnsigned(in);
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    private static void writeUnsigned(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readUnsigned(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,192 @@
+package com.vedant.querybot.util;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar buffer for one chunk of upload rows, encoded for the column types of the target table.
+ * Each column is a primitive vector plus a null bitmap:
+ * <ul>
+ *   <li>BIGINT, BOOLEAN (0/1), DATE (epoch day), TIMESTAMP (local epoch micros) and
+ *       TIMESTAMPTZ (UTC epoch micros) in a {@code long[]},</li>
+ *   <li>DOUBLE in a {@code double[]},</li>
+ *   <li>NUMERIC (BigDecimal) and TEXT (trimmed String) in an {@code Object[]}.</li>
+ * </ul>
+ * Every cell is parsed once when the row is added, so loaders bind by (row, column) index without
+ * re-parsing or boxing. Buffers are reused across chunks via {@link #reset}. Not thread-safe.
+ */
+public class RowChunk {
+
+    private Column[] columns = new Column[0];
+    private int columnCount;
+    private int capacity;
+    private int size;
+
+    public RowChunk(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    // Clear the chunk and (re)type its columns; vectors are kept when a column's storage kind is unchanged
+    public void reset(List<SqlType> types) {
+        if (columns.length < types.size()) columns = Arrays.copyOf(columns, types.size());
+        for (int c = 0; c < types.size(); c++) {
+            Column col = columns[c];
+            if (col == null) columns[c] = new Column(types.get(c), capacity);
+            else col.retype(types.get(c), size, capacity);
+        }
+        for (int c = types.size(); c < columnCount; c++) columns[c].clear(size);
+        columnCount = types.size();
+        size = 0;
+    }
+
+    // Encode one row. Cells must already fit their column type (see ColumnProfiler); blank cells become NULL.
+    public void add(String[] row) {
+        if (size == capacity) grow();
+        for (int c = 0; c < columnCount; c++) {
+            columns[c].set(size, c < row.length ? row[c] : null);
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return columnCount;
+    }
+
+    public SqlType type(int col) {
+        return columns[col].type;
+    }
+
+    public boolean isNull(int row, int col) {
+        return (columns[col].nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    // BIGINT value, BOOLEAN as 0/1, DATE as epoch day, TIMESTAMP / TIMESTAMPTZ as epoch microseconds
+    public long getLong(int row, int col) {
+        return columns[col].longs[row];
+    }
+
+    public double getDouble(int row, int col) {
+        return columns[col].doubles[row];
+    }
+
+    public boolean getBoolean(int row, int col) {
+        return columns[col].longs[row] != 0;
+    }
+
+    // The same Java value SqlType.parse produces (Long, Double, BigDecimal, Boolean, LocalDate,
+    // LocalDateTime, OffsetDateTime in UTC or String); null for NULL cells
+    public Object getObject(int row, int col) {
+        if (isNull(row, col)) return null;
+        Column column = columns[col];
+        return switch (column.type) {
+            case BIGINT -> column.longs[row];
+            case DOUBLE -> column.doubles[row];
+            case BOOLEAN -> column.longs[row] != 0;
+            case DATE -> LocalDate.ofEpochDay(column.longs[row]);
+            case TIMESTAMP -> LocalDateTime.ofInstant(instant(column.longs[row]), ZoneOffset.UTC);
+            case TIMESTAMPTZ -> OffsetDateTime.ofInstant(instant(column.longs[row]), ZoneOffset.UTC);
+            case NUMERIC, TEXT -> column.refs[row];
+        };
+    }
+
+    private static Instant instant(long epochMicros) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1_000);
+    }
+
+    private void grow() {
+        capacity = capacity * 2;
+        for (int c = 0; c < columnCount; c++) columns[c].grow(capacity);
+    }
+
+    private static boolean usesLongs(SqlType t) {
+        return t == SqlType.BIGINT || t == SqlType.BOOLEAN || t == SqlType.DATE
+                || t == SqlType.TIMESTAMP || t == SqlType.TIMESTAMPTZ;
+    }
+
+    private static final class Column {
+        SqlType type;
+        long[] longs;
+        double[] doubles;
+        Object[] refs;
+        long[] nulls;
+
+        Column(SqlType type, int capacity) {
+            this.nulls = new long[(capacity + 63) >>> 6];
+            this.type = type;
+            allocate(capacity);
+        }
+
+        void retype(SqlType t, int used, int capacity) {
+            clear(used);
+            boolean sameStorage = usesLongs(t) ? longs != null : t == SqlType.DOUBLE ? doubles != null : refs != null;
+            type = t;
+            if (!sameStorage) {
+                longs = null;
+                doubles = null;
+                refs = null;
+                allocate(capacity);
+            }
+            if ((nulls.length << 6) < capacity || length() < capacity) grow(capacity);
+        }
+
+        int length() {
+            return longs != null ? longs.length : doubles != null ? doubles.length : refs.length;
+        }
+
+        // Drop references from the previous chunk and reset the null bitmap
+        void clear(int used) {
+            if (refs != null) Arrays.fill(refs, 0, Math.min(used, refs.length), null);
+            Arrays.fill(nulls, 0L);
+        }
+
+        void allocate(int capacity) {
+            if (usesLongs(type)) longs = new long[capacity];
+            else if (type == SqlType.DOUBLE) doubles = new double[capacity];
+            else refs = new Object[capacity];
+        }
+
+        void grow(int capacity) {
+            nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+            if (longs != null) longs = Arrays.copyOf(longs, capacity);
+            if (doubles != null) doubles = Arrays.copyOf(doubles, capacity);
+            if (refs != null) refs = Arrays.copyOf(refs, capacity);
+        }
+
+        void set(int row, String v) {
+            int s = 0;
+            int e = v == null ? 0 : v.length();
+            while (s < e && v.charAt(s) <= ' ') s++;
+            while (e > s && v.charAt(e - 1) <= ' ') e--;
+            if (s == e) {
+                nulls[row >>> 6] |= 1L << row;
+                return;
+            }
+            switch (type) {
+                case BIGINT -> longs[row] = Long.parseLong(v, s, e, 10);
+                case DOUBLE -> doubles[row] = Double.parseDouble(v);
+                case BOOLEAN -> longs[row] = (v.charAt(s) == 't' || v.charAt(s) == 'T') ? 1 : 0;
+                case DATE -> longs[row] = ((LocalDate) type.parse(v)).toEpochDay();
+                case TIMESTAMP -> {
+                    LocalDateTime ts = (LocalDateTime) type.parse(v);
+                    longs[row] = ts.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + ts.getNano() / 1_000;
+                }
+                case TIMESTAMPTZ -> {
+                    OffsetDateTime ts = (OffsetDateTime) type.parse(v);
+                    longs[row] = ts.toEpochSecond() * 1_000_000L + ts.getNano() / 1_000;
+                }
+                case NUMERIC -> refs[row] = new BigDecimal(v.substring(s, e));
+                case TEXT -> refs[row] = s == 0 && e == v.length() ? v : v.substring(s, e);
+            }
+        }
+    }
+}
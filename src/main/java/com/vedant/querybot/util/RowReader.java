@@ -0,0 +1,21 @@
+package com.vedant.querybot.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Pull-based row source used by the upload pipeline.
+ * Rows are returned one at a time as arrays aligned with {@link #getHeaders()},
+ * so memory stays bounded by what the caller keeps rather than by the file size.
+ */
+public interface RowReader extends Closeable {
+
+    // Column headers in file order (may be empty for an empty file). Schemaless sources (JSON) append
+    // keys as they are first seen, so the list can grow while reading; rows never shrink it.
+    List<String> getHeaders() throws IOException;
+
+    // Next row, or null when the source is exhausted. Missing trailing cells are null; the row is
+    // aligned with the headers as they were when it was returned.
+    String[] readRow() throws IOException;
+}
@@ -54,6 +54,12 @@ public class SchemaGenerator {
         return "TEXT";
     }
 
+    // quote an identifier Postgres-style so mixed case and reserved words survive as-is
+    public static String quoteIdentifier(String id) {
+        if (id == null) return "\"\"";
+        return "\"" + id.replace("\"", "\"\"") + "\"";
+    }
+
     // prepare parameterized insert SQL
     public static String prepareInsertSql(String tableName, List<String> columns) {
         String t = sanitizeIdentifier(tableName);
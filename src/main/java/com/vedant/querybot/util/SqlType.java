@@ -0,0 +1,220 @@
+package com.vedant.querybot.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+
+/**
+ * Column types the upload pipeline can create, ordered into a small widening lattice:
+ * BIGINT -> DOUBLE -> NUMERIC -> TEXT, DATE -> TIMESTAMP -> TEXT,
+ * TIMESTAMPTZ -> TEXT and BOOLEAN -> TEXT.
+ * {@link ColumnProfiler} starts from the narrowest type that fits the first value and widens
+ * with {@link #join} as later values are seen, so a column can be widened after the table exists.
+ *
+ * Values are classified by {@link #classify} with hand-written scanners (no regex, no
+ * substrings); {@link #parse} is only used to bind values already known to fit.
+ */
+public enum SqlType {
+    BIGINT("bigint"),
+    DOUBLE("double precision"),
+    NUMERIC("numeric"),
+    BOOLEAN("boolean"),
+    DATE("date"),
+    TIMESTAMP("timestamp"),
+    TIMESTAMPTZ("timestamptz"),
+    TEXT("text");
+
+    // decimals with more significant digits than a double holds exactly are kept as NUMERIC
+    private static final int DOUBLE_DIGITS = 15;
+    private static final int DOUBLE_MAX_EXPONENT = 300;
+
+    // ISO local date-time plus "Z", "+HH" or "+HH:MM"
+    private static final DateTimeFormatter OFFSET_DATE_TIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            .appendOffset("+HH:mm", "Z")
+            .toFormatter();
+
+    private final String sql;
+
+    SqlType(String sql) {
+        this.sql = sql;
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    // Convert a (non-blank) cell to the Java value bound for this type; throws if it does not fit
+    public Object parse(String value) {
+        String v = value.trim();
+        return switch (this) {
+            case BIGINT -> Long.parseLong(v);
+            case DOUBLE -> Double.parseDouble(v);
+            case NUMERIC -> new BigDecimal(v);
+            case BOOLEAN -> {
+                if (v.equalsIgnoreCase("true")) yield Boolean.TRUE;
+                if (v.equalsIgnoreCase("false")) yield Boolean.FALSE;
+                throw new IllegalArgumentException("Not a boolean: " + v);
+            }
+            case DATE -> LocalDate.parse(v);
+            case TIMESTAMP -> v.length() == 10
+                    ? LocalDate.parse(v).atStartOfDay()
+                    : LocalDateTime.parse(v.replace(' ', 'T'));
+            case TIMESTAMPTZ -> OffsetDateTime.parse(v.replace(' ', 'T'), OFFSET_DATE_TIME);
+            case TEXT -> v;
+        };
+    }
+
+    // Least upper bound of two types in the lattice (null means "no values seen yet")
+    public static SqlType join(SqlType a, SqlType b) {
+        if (a == null) return b;
+        if (b == null || a == b) return a;
+        if (isNumeric(a) && isNumeric(b)) return a.ordinal() > b.ordinal() ? a : b;
+        if (isLocalTemporal(a) && isLocalTemporal(b)) return TIMESTAMP;
+        return TEXT;
+    }
+
+    private static boolean isNumeric(SqlType t) {
+        return t == BIGINT || t == DOUBLE || t == NUMERIC;
+    }
+
+    // a zoned timestamp never joins a local one: that would silently assume the session time zone
+    private static boolean isLocalTemporal(SqlType t) {
+        return t == DATE || t == TIMESTAMP;
+    }
+
+    /* ---------- scanners ---------- */
+
+    // Narrowest type for one value, or null for a blank/null cell
+    public static SqlType classify(String v) {
+        if (v == null) return null;
+        int s = 0;
+        int e = v.length();
+        while (s < e && v.charAt(s) <= ' ') s++;
+        while (e > s && v.charAt(e - 1) <= ' ') e--;
+        if (s == e) return null;
+
+        char c = v.charAt(s);
+        if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+            SqlType t = scanNumber(v, s, e);
+            if (t != null) return t;
+            return scanTemporal(v, s, e);
+        }
+        if (e - s == 4 && v.regionMatches(true, s, "true", 0, 4)) return BOOLEAN;
+        if (e - s == 5 && v.regionMatches(true, s, "false", 0, 5)) return BOOLEAN;
+        return TEXT;
+    }
+
+    // [+-]digits[.digits][(e|E)[+-]digits]; null when the value is not a number
+    private static SqlType scanNumber(String v, int s, int e) {
+        int i = s;
+        boolean negative = false;
+        char c = v.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            if (++i == e) return null;
+        }
+        // integer part, accumulated negatively so Long.MIN_VALUE fits
+        long acc = 0;
+        boolean overflow = false;
+        int significant = 0;
+        int intStart = i;
+        for (; i < e; i++) {
+            c = v.charAt(i);
+            if (c < '0' || c > '9') break;
+            int d = c - '0';
+            if (significant > 0 || d != 0) significant++;
+            if (!overflow) {
+                if (acc < (Long.MIN_VALUE + d) / 10) overflow = true;
+                else acc = acc * 10 - d;
+            }
+        }
+        if (i == intStart) return null;
+        if (i == e) {
+            if (overflow || (!negative && acc == Long.MIN_VALUE)) return NUMERIC;
+            return BIGINT;
+        }
+        if (v.charAt(i) == '.') {
+            int fracStart = ++i;
+            for (; i < e; i++) {
+                c = v.charAt(i);
+                if (c < '0' || c > '9') break;
+                if (significant > 0 || c != '0') significant++;
+            }
+            if (i == fracStart) return null;
+        }
+        int exponent = 0;
+        if (i < e && (v.charAt(i) == 'e' || v.charAt(i) == 'E')) {
+            if (++i < e && (v.charAt(i) == '-' || v.charAt(i) == '+')) i++;
+            int expStart = i;
+            for (; i < e; i++) {
+                c = v.charAt(i);
+                if (c < '0' || c > '9') break;
+                if (exponent < 10_000) exponent = exponent * 10 + (c - '0');
+            }
+            if (i == expStart) return null;
+        }
+        if (i != e) return null;
+        return significant <= DOUBLE_DIGITS && exponent <= DOUBLE_MAX_EXPONENT ? DOUBLE : NUMERIC;
+    }
+
+    // yyyy-MM-dd, optionally followed by ('T'|' ')HH:mm[:ss[.fraction]] and an offset (Z, +HH, +HH:MM)
+    private static SqlType scanTemporal(String v, int s, int e) {
+        if (e - s < 10) return TEXT;
+        int year = digits(v, s, 4);
+        int month = digits(v, s + 5, 2);
+        int day = digits(v, s + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || v.charAt(s + 4) != '-' || v.charAt(s + 7) != '-') {
+            return TEXT;
+        }
+        if (day > LocalDate.of(year, month, 1).lengthOfMonth()) return TEXT;
+        int i = s + 10;
+        if (i == e) return DATE;
+
+        char sep = v.charAt(i++);
+        if (sep != 'T' && sep != ' ') return TEXT;
+        if (!time(v, i, e, 2, 23) || !time(v, i + 3, e, 2, 59) || v.charAt(i + 2) != ':') return TEXT;
+        i += 5;
+        if (i < e && v.charAt(i) == ':') {
+            if (!time(v, i + 1, e, 2, 59)) return TEXT;
+            i += 3;
+            if (i < e && v.charAt(i) == '.') {
+                int fracStart = ++i;
+                while (i < e && i - fracStart < 9 && v.charAt(i) >= '0' && v.charAt(i) <= '9') i++;
+                if (i == fracStart) return TEXT;
+            }
+        }
+        if (i == e) return TIMESTAMP;
+
+        // offset
+        char z = v.charAt(i);
+        if (z == 'Z') return i + 1 == e ? TIMESTAMPTZ : TEXT;
+        if (z != '+' && z != '-') return TEXT;
+        if (!time(v, i + 1, e, 2, 18)) return TEXT;
+        i += 3;
+        if (i == e) return TIMESTAMPTZ;
+        if (v.charAt(i) != ':' || !time(v, i + 1, e, 2, 59) || i + 3 != e) return TEXT;
+        return TIMESTAMPTZ;
+    }
+
+    // n ASCII digits at [i, i+n) as a number, or -1
+    private static int digits(String v, int i, int n) {
+        if (i + n > v.length()) return -1;
+        int r = 0;
+        for (int k = i; k < i + n; k++) {
+            char c = v.charAt(k);
+            if (c < '0' || c > '9') return -1;
+            r = r * 10 + (c - '0');
+        }
+        return r;
+    }
+
+    private static boolean time(String v, int i, int e, int n, int max) {
+        if (i + n > e) return false;
+        int d = digits(v, i, n);
+        return d >= 0 && d <= max;
+    }
+}
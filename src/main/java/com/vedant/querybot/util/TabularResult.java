@@ -0,0 +1,366 @@
+package com.vedant.querybot.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Query result held by column: the column names once, then per column a typed vector and a null bitmap
+ * <ul>
+ *   <li>integer columns (BIGINT, INTEGER, SMALLINT, TINYINT) in a {@code long[]},</li>
+ *   <li>DOUBLE / FLOAT in a {@code double[]},</li>
+ *   <li>everything else (NUMERIC, text, temporal, boolean ...) as the driver's object in an {@code Object[]}.</li>
+ * </ul>
+ * Unlike a list of row maps, column names are not repeated per row and numbers are not boxed.
+ * Values are read straight from the ResultSet by {@link Builder}; {@link JsonWriter} writes the same
+ * JSON a list of row objects would ({@code [{"col": value, ...}, ...]}) and {@link #appendValue} formats
+ * cells for the summary prompt. {@link #asMaps} is a lazy row-map view for code that only looks at a few rows.
+ *
+ * Immutable once built; slices share the vectors of the result they were taken from.
+ */
+@JsonSerialize(using = TabularResult.JsonWriter.class)
+public final class TabularResult {
+
+    private static final byte LONG = 0;
+    private static final byte DOUBLE = 1;
+    private static final byte OBJECT = 2;
+
+    private static final TabularResult EMPTY = new TabularResult(new String[0], new byte[0],
+            new long[0][], new double[0][], new Object[0][], new long[0][], 0, 0);
+
+    private final String[] columns;
+    private final byte[] kinds;
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final Object[][] refs;
+    private final long[][] nulls;
+    private final int offset;
+    private final int size;
+
+    private TabularResult(String[] columns, byte[] kinds, long[][] longs, double[][] doubles, Object[][] refs,
+                          long[][] nulls, int offset, int size) {
+        this.columns = columns;
+        this.kinds = kinds;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.refs = refs;
+        this.nulls = nulls;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static TabularResult empty() {
+        return EMPTY;
+    }
+
+    // Builder typed from the result set's column metadata
+    public static Builder builder(ResultSetMetaData md) throws SQLException {
+        int count = md.getColumnCount();
+        String[] names = new String[count];
+        byte[] kinds = new byte[count];
+        for (int c = 0; c < count; c++) {
+            String label = md.getColumnLabel(c + 1);
+            names[c] = label == null || label.isEmpty() ? md.getColumnName(c + 1) : label;
+            kinds[c] = kind(md.getColumnType(c + 1));
+        }
+        return new Builder(uniqueNames(names), kinds);
+    }
+
+    // Columnar copy of row maps (e.g. decoded from a cache); columns in first-seen order
+    public static TabularResult of(List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) return EMPTY;
+        Set<String> names = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) names.addAll(row.keySet());
+        String[] columns = names.toArray(new String[0]);
+        byte[] kinds = new byte[columns.length];
+        for (int c = 0; c < columns.length; c++) kinds[c] = kind(columns[c], rows);
+        Builder builder = new Builder(columns, kinds);
+        for (Map<String, Object> row : rows) {
+            for (int c = 0; c < columns.length; c++) builder.set(c, row.get(columns[c]));
+            builder.size++;
+        }
+        return builder.build();
+    }
+
+    public int rowCount() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int columnCount() {
+        return columns.length;
+    }
+
+    public String column(int col) {
+        return columns[col];
+    }
+
+    public List<String> columns() {
+        return List.of(columns);
+    }
+
+    public boolean isNull(int row, int col) {
+        int r = offset + row;
+        return (nulls[col][r >>> 6] & (1L << r)) != 0;
+    }
+
+    // Cell value: Long for integer columns, Double for DOUBLE columns, otherwise the driver's object; null for NULL
+    public Object get(int row, int col) {
+        if (isNull(row, col)) return null;
+        int r = offset + row;
+        return switch (kinds[col]) {
+            case LONG -> longs[col][r];
+            case DOUBLE -> doubles[col][r];
+            default -> refs[col][r];
+        };
+    }
+
+    // Appends the cell as String.valueOf(get(row, col)) would, without boxing numbers
+    public void appendValue(StringBuilder sb, int row, int col) {
+        if (isNull(row, col)) {
+            sb.append("null");
+            return;
+        }
+        int r = offset + row;
+        switch (kinds[col]) {
+            case LONG -> sb.append(longs[col][r]);
+            case DOUBLE -> sb.append(doubles[col][r]);
+            default -> sb.append(refs[col][r]);
+        }
+    }
+
+    // Rows [from, to) sharing this result's vectors
+    public TabularResult slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("slice [" + from + ", " + to + ") of " + size + " rows");
+        }
+        return new TabularResult(columns, kinds, longs, doubles, refs, nulls, offset + from, to - from);
+    }
+
+    // One row as a map in column order, with case-insensitive keys like Spring's ColumnMapRowMapper
+    public Map<String, Object> row(int row) {
+        Map<String, Object> map = new LinkedCaseInsensitiveMap<>(columns.length, Locale.ROOT);
+        for (int c = 0; c < columns.length; c++) map.put(columns[c], get(row, c));
+        return map;
+    }
+
+    // Read-only list view; each get() builds that row's map, nothing is materialized up front
+    public List<Map<String, Object>> asMaps() {
+        return new RowView();
+    }
+
+    private final class RowView extends AbstractList<Map<String, Object>> implements RandomAccess {
+        @Override
+        public Map<String, Object> get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return row(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static byte kind(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+            case Types.DOUBLE, Types.FLOAT -> DOUBLE;
+            default -> OBJECT;
+        };
+    }
+
+    // The vector every non-null value fits: integers -> LONG, doubles -> DOUBLE, anything else or a mix -> OBJECT
+    private static byte kind(String column, List<Map<String, Object>> rows) {
+        byte kind = -1;
+        for (Map<String, Object> row : rows) {
+            Object v = row.get(column);
+            if (v == null) continue;
+            byte k = v instanceof Long || v instanceof Integer || v instanceof Short || v instanceof Byte ? LONG
+                    : v instanceof Double ? DOUBLE
+                    : OBJECT;
+            if (kind == -1) kind = k;
+            else if (kind != k) return OBJECT;
+        }
+        return kind == -1 ? OBJECT : kind;
+    }
+
+    // Row maps would keep only one of two equal (case-insensitive) labels; suffix the later ones instead
+    private static String[] uniqueNames(String[] names) {
+        Set<String> seen = new HashSet<>();
+        for (int c = 0; c < names.length; c++) {
+            String base = names[c] == null ? "column" : names[c];
+            String name = base;
+            for (int n = 2; !seen.add(name.toLowerCase(Locale.ROOT)); n++) name = base + "_" + n;
+            names[c] = name;
+        }
+        return names;
+    }
+
+    // Rough heap footprint of a referenced value (the reference itself is counted per cell)
+    private static long payloadBytes(Object v) {
+        if (v instanceof CharSequence s) return 40 + 2L * s.length();
+        if (v instanceof Number || v instanceof Boolean) return 16;
+        if (v instanceof byte[] b) return 16 + b.length;
+        return 40 + 2L * String.valueOf(v).length();
+    }
+
+    /**
+     * Appends result set rows into growing column vectors. Not thread-safe; {@link #build} and
+     * {@link #slice} may be called while rows are still being added (they see the rows added so far).
+     */
+    public static final class Builder {
+        private final String[] columns;
+        private final byte[] kinds;
+        private final long[][] longs;
+        private final double[][] doubles;
+        private final Object[][] refs;
+        private final long[][] nulls;
+        private int capacity = 64;
+        private int size;
+        private long bytes;
+
+        private Builder(String[] columns, byte[] kinds) {
+            this.columns = columns;
+            this.kinds = kinds;
+            this.longs = new long[columns.length][];
+            this.doubles = new double[columns.length][];
+            this.refs = new Object[columns.length][];
+            this.nulls = new long[columns.length][];
+            for (int c = 0; c < columns.length; c++) {
+                nulls[c] = new long[capacity >>> 6];
+                switch (kinds[c]) {
+                    case LONG -> longs[c] = new long[capacity];
+                    case DOUBLE -> doubles[c] = new double[capacity];
+                    default -> refs[c] = new Object[capacity];
+                }
+            }
+        }
+
+        // Read the current row of rs (already positioned by next())
+        public void add(ResultSet rs) throws SQLException {
+            if (size == capacity) grow();
+            for (int c = 0; c < columns.length; c++) {
+                int index = c + 1;
+                switch (kinds[c]) {
+                    case LONG -> {
+                        longs[c][size] = rs.getLong(index);
+                        if (rs.wasNull()) markNull(c);
+                    }
+                    case DOUBLE -> {
+                        doubles[c][size] = rs.getDouble(index);
+                        if (rs.wasNull()) markNull(c);
+                    }
+                    default -> set(c, rs.getObject(index));
+                }
+            }
+            bytes += 16 + 8L * columns.length;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // Estimated heap held by the rows added so far
+        public long bytes() {
+            return bytes;
+        }
+
+        public TabularResult build() {
+            return new TabularResult(columns, kinds, longs.clone(), doubles.clone(), refs.clone(), nulls.clone(), 0, size);
+        }
+
+        public TabularResult slice(int from, int to) {
+            return build().slice(from, to);
+        }
+
+        // Store a value of the current row (size); used by add() for object columns and by TabularResult.of
+        private void set(int c, Object v) {
+            if (size == capacity) grow();
+            if (v == null) {
+                markNull(c);
+                return;
+            }
+            switch (kinds[c]) {
+                case LONG -> longs[c][size] = ((Number) v).longValue();
+                case DOUBLE -> doubles[c][size] = ((Number) v).doubleValue();
+                default -> {
+                    refs[c][size] = v;
+                    bytes += payloadBytes(v);
+                }
+            }
+        }
+
+        private void markNull(int c) {
+            nulls[c][size >>> 6] |= 1L << size;
+        }
+
+        // Vectors are replaced, never written in place, so results built earlier keep their view
+        private void grow() {
+            capacity *= 2;
+            for (int c = 0; c < columns.length; c++) {
+                nulls[c] = Arrays.copyOf(nulls[c], capacity >>> 6);
+                if (longs[c] != null) longs[c] = Arrays.copyOf(longs[c], capacity);
+                if (doubles[c] != null) doubles[c] = Arrays.copyOf(doubles[c], capacity);
+                if (refs[c] != null) refs[c] = Arrays.copyOf(refs[c], capacity);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code [{"col": value, ...}, ...]} straight from the vectors: numbers without boxing,
+     * other values through the mapper's configured serializers (dates, decimals ...).
+     */
+    public static final class JsonWriter extends StdSerializer<TabularResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        public JsonWriter() {
+            super(TabularResult.class);
+        }
+
+        @Override
+        public void serialize(TabularResult result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(result, result.size);
+            for (int row = 0; row < result.size; row++) {
+                gen.writeStartObject();
+                int r = result.offset + row;
+                for (int c = 0; c < result.columns.length; c++) {
+                    String name = result.columns[c];
+                    if (result.isNull(row, c)) {
+                        gen.writeNullField(name);
+                        continue;
+                    }
+                    switch (result.kinds[c]) {
+                        case LONG -> gen.writeNumberField(name, result.longs[c][r]);
+                        case DOUBLE -> gen.writeNumberField(name, result.doubles[c][r]);
+                        default -> provider.defaultSerializeField(name, result.refs[c][r], gen);
+                    }
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
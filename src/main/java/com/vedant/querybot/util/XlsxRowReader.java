@@ -0,0 +1,227 @@
+package com.vedant.querybot.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streams one worksheet of an .xlsx file without building the POI workbook model.
+ * The sheet XML is pulled with StAX one row at a time; only the shared-strings table
+ * and cell styles are loaded up front. Formula cells yield their cached result.
+ * Date-formatted numbers are rendered as ISO local date-times, other numbers in plain decimal notation.
+ */
+public class XlsxRowReader implements RowReader {
+
+    private static final XMLInputFactory XML = XMLInputFactory.newFactory();
+    static {
+        XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final OPCPackage pkg;
+    private final InputStream sheetData;
+    private final XMLStreamReader xml;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final boolean date1904;
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+    private final List<String> headers;
+
+    // sheetName selects a worksheet by name (or 1-based position); null means the first sheet
+    public XlsxRowReader(Path path, String sheetName) throws IOException {
+        try {
+            this.pkg = OPCPackage.open(path.toFile(), PackageAccess.READ);
+        } catch (OpenXML4JException ex) {
+            throw new IOException("Invalid xlsx file: " + ex.getMessage(), ex);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            this.styles = reader.getStylesTable();
+            this.date1904 = readDate1904(reader);
+            this.sheetData = openSheet(reader, sheetName);
+            this.xml = XML.createXMLStreamReader(sheetData);
+            String[] first = nextRow();
+            if (first == null) {
+                this.headers = Collections.emptyList();
+            } else {
+                for (int c = 0; c < first.length; c++) {
+                    if (first[c] == null) first[c] = "col" + c;
+                }
+                this.headers = Collections.unmodifiableList(Arrays.asList(first));
+            }
+        } catch (IOException | OpenXML4JException | SAXException | XMLStreamException | RuntimeException ex) {
+            pkg.revert();
+            if (ex instanceof IOException io) throw io;
+            throw new IOException("Failed to read xlsx file: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String[] readRow() throws IOException {
+        if (headers.isEmpty()) return null;
+        try {
+            String[] raw = nextRow();
+            if (raw == null) return null;
+            return raw.length == headers.size() ? raw : Arrays.copyOf(raw, headers.size());
+        } catch (XMLStreamException ex) {
+            throw new IOException("Failed to read xlsx row: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException ignored) {
+        } finally {
+            sheetData.close();
+            pkg.revert(); // read-only: close without saving
+        }
+    }
+
+    private static InputStream openSheet(XSSFReader reader, String sheetName) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+        int position = 0;
+        while (it.hasNext()) {
+            InputStream in = it.next();
+            position++;
+            if (sheetName == null || sheetName.isBlank()
+                    || sheetName.equals(it.getSheetName())
+                    || sheetName.trim().equals(String.valueOf(position))) {
+                return in;
+            }
+            in.close();
+        }
+        if (sheetName == null || sheetName.isBlank()) throw new IOException("Workbook has no sheets");
+        throw new IOException("Sheet not found: " + sheetName);
+    }
+
+    private static boolean readDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XMLStreamException {
+        try (InputStream in = reader.getWorkbookData()) {
+            XMLStreamReader wb = XML.createXMLStreamReader(in);
+            try {
+                while (wb.hasNext()) {
+                    if (wb.next() == XMLStreamConstants.START_ELEMENT) {
+                        String name = wb.getLocalName();
+                        if ("workbookPr".equals(name)) {
+                            String v = wb.getAttributeValue(null, "date1904");
+                            return "1".equals(v) || "true".equalsIgnoreCase(v);
+                        }
+                        if ("sheets".equals(name)) return false; // workbookPr always precedes sheets
+                    }
+                }
+                return false;
+            } finally {
+                wb.close();
+            }
+        }
+    }
+
+    /* ---------- sheet XML ---------- */
+
+    // Next non-empty <row> as values indexed by column; null at the end of the sheet
+    private String[] nextRow() throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() != XMLStreamConstants.START_ELEMENT || !"row".equals(xml.getLocalName())) continue;
+            List<String> cells = new ArrayList<>(headers == null ? 16 : headers.size());
+            boolean any = false;
+            int nextCol = 0;
+            while (xml.hasNext()) {
+                int ev = xml.next();
+                if (ev == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) break;
+                if (ev != XMLStreamConstants.START_ELEMENT || !"c".equals(xml.getLocalName())) continue;
+                String ref = xml.getAttributeValue(null, "r");
+                int col = ref != null ? columnIndex(ref) : -1;
+                if (col < 0) col = nextCol;
+                nextCol = col + 1;
+                String value = readCell(xml.getAttributeValue(null, "t"), xml.getAttributeValue(null, "s"));
+                if (value == null) continue;
+                while (cells.size() <= col) cells.add(null);
+                cells.set(col, value);
+                any = true;
+            }
+            if (any) return cells.toArray(new String[0]);
+        }
+        return null;
+    }
+
+    // Positioned on <c>; consumes through </c>. Formula text (<f>) is ignored in favour of the cached <v>.
+    private String readCell(String type, String style) throws XMLStreamException {
+        String raw = null;
+        StringBuilder inline = null;
+        while (xml.hasNext()) {
+            int ev = xml.next();
+            if (ev == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) break;
+            if (ev != XMLStreamConstants.START_ELEMENT) continue;
+            String name = xml.getLocalName();
+            if ("v".equals(name)) {
+                raw = xml.getElementText();
+            } else if ("t".equals(name) && "inlineStr".equals(type)) {
+                if (inline == null) inline = new StringBuilder();
+                inline.append(xml.getElementText());
+            }
+        }
+        if (inline != null) return inline.toString();
+        if (raw == null || raw.isEmpty()) return null;
+        if (type == null || "n".equals(type)) return formatNumber(raw, style);
+        return switch (type) {
+            case "s" -> sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString();
+            case "b" -> "1".equals(raw) ? "true" : "false";
+            case "e" -> null; // #DIV/0!, #N/A, ...
+            default -> raw;  // "str" (formula string result), "d" (ISO date)
+        };
+    }
+
+    private String formatNumber(String raw, String style) {
+        try {
+            if (style != null && isDateStyle(Integer.parseInt(style))) {
+                double d = Double.parseDouble(raw);
+                if (DateUtil.isValidExcelDate(d)) return DateUtil.getLocalDateTime(d, date1904).toString();
+            }
+            return new BigDecimal(raw).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException ex) {
+            return raw;
+        }
+    }
+
+    private boolean isDateStyle(int styleIdx) {
+        return dateStyles.computeIfAbsent(styleIdx, idx -> {
+            if (styles == null || idx >= styles.getNumCellStyles()) return false;
+            XSSFCellStyle cs = styles.getStyleAt(idx);
+            return cs != null && DateUtil.isADateFormat(cs.getDataFormat(), cs.getDataFormatString());
+        });
+    }
+
+    // "BC12" -> 54 (zero based)
+    private static int columnIndex(String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char ch = ref.charAt(i);
+            if (ch < 'A' || ch > 'Z') break;
+            col = col * 26 + (ch - 'A' + 1);
+        }
+        return col - 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.vedant.querybot.controller;
+
+import com.vedant.querybot.service.QueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QueryControllerTest {
+
+    private final QueryService queryService = mock(QueryService.class);
+    private final QueryController controller = new QueryController(queryService, 1000);
+
+    @Test
+    void conversationIdHeaderSelectsTheConversation() {
+        when(queryService.getConversation("conv-7")).thenReturn(List.of(Map.of("role", "user", "content", "hi")));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(QueryController.CONVERSATION_HEADER, " conv-7 ");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertEquals(1, controller.getHistory(request, response).getBody().size());
+        assertEquals("conv-7", response.getHeader(QueryController.CONVERSATION_HEADER));
+        // no HttpSession is created when the client names its conversation
+        assertNull(request.getSession(false));
+    }
+
+    @Test
+    void fallsBackToTheHttpSessionAndRejectsMalformedIds() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getHistory(request, response);
+        String sessionId = request.getSession().getId();
+        verify(queryService).getConversation(sessionId);
+        assertEquals(sessionId, response.getHeader(QueryController.CONVERSATION_HEADER));
+
+        MockHttpServletRequest bad = new MockHttpServletRequest();
+        bad.addHeader(QueryController.CONVERSATION_HEADER, "../other session");
+        assertThrows(ResponseStatusException.class, () -> controller.getHistory(bad, new MockHttpServletResponse()));
+        verifyNoMoreInteractions(queryService);
+    }
+}
@@ -0,0 +1,47 @@
+package com.vedant.querybot.repository;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class QueryHistoryRepositoryImplTest {
+
+    @Test
+    void buildsKeysetQueryWithOptionalFilters() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        QueryHistoryRepositoryImpl repo = new QueryHistoryRepositoryImpl(jdbc);
+        Instant at = Instant.parse("2025-03-01T10:15:30.123456Z");
+
+        repo.findPage("movies", "Top-rated  films?", new HistoryCursor(at, 42), 51);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).query(sql.capture(), any(RowMapper.class), args.capture());
+        assertEquals("SELECT id, nl_query, generated_sql, table_name, executed_at, status, elapsed_ms FROM query_history WHERE 1=1"
+                + " AND table_name = ? AND to_tsvector('simple', nl_query) @@ to_tsquery('simple', ?)"
+                + " AND (executed_at, id) < (?, ?) ORDER BY executed_at DESC, id DESC LIMIT ?", sql.getValue());
+        assertArrayEquals(new Object[] {"movies", "top:* & rated:* & films:*", Timestamp.from(at), 42L, 51},
+                args.getValue());
+
+        // first page, no filters: only the ordering and limit remain
+        repo.findPage(" ", "?!", null, 10);
+        verify(jdbc).query(eq("SELECT id, nl_query, generated_sql, table_name, executed_at, status, elapsed_ms FROM query_history WHERE 1=1"
+                + " ORDER BY executed_at DESC, id DESC LIMIT ?"), any(RowMapper.class), eq(10));
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        HistoryCursor cursor = new HistoryCursor(Instant.parse("2025-03-01T10:15:30.123456Z"), 7);
+        assertEquals(cursor, HistoryCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursor.decode("bm9waXBl"));
+    }
+}
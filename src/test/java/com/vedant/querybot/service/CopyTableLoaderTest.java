@@ -0,0 +1,96 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.RowChunk;
+import com.vedant.querybot.util.SqlType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expected bytes are what PostgreSQL itself sends for the same values
+ * ({@code numeric_send}, {@code date_send}, {@code timestamp_send}, {@code boolsend}, ...).
+ */
+class CopyTableLoaderTest {
+
+    @Test
+    void binaryHeaderMatchesPgCopySignature() throws IOException {
+        assertEquals("5047434f50590aff0d0a00" + "00000000" + "00000000",
+                binary(out -> CopyTableLoader.writeBinaryHeader(out)));
+    }
+
+    @Test
+    void encodesNumericLikeNumericSend() throws IOException {
+        // SELECT numeric_send(x): ndigits, weight, sign, dscale, then base-10000 digits
+        assertEquals("0000000e" + "0003" + "0001" + "0000" + "0003" + "0001" + "0929" + "1a7c", numeric("12345.678"));
+        assertEquals("0000000a" + "0001" + "ffff" + "4000" + "0001" + "1388", numeric("-0.5"));
+        assertEquals("0000000a" + "0001" + "ffff" + "0000" + "0003" + "0032", numeric("0.005"));
+        assertEquals("0000000a" + "0001" + "0000" + "0000" + "0000" + "03e8", numeric("1000"));
+        assertEquals("0000000a" + "0001" + "0001" + "0000" + "0002" + "0001", numeric("10000.00"));
+        assertEquals("00000008" + "0000" + "0000" + "0000" + "0000", numeric("0"));
+        assertEquals("00000008" + "0000" + "0000" + "0000" + "0002", numeric("0.00"));
+        // negative scale is written as an integer: 1.2E+5 -> 120000
+        assertEquals("0000000a" + "0001" + "0001" + "0000" + "0000" + "000c", numeric("1.2E+5"));
+    }
+
+    @Test
+    void encodesRowLikeBinaryCopyOut() throws IOException {
+        RowChunk chunk = new RowChunk(4);
+        chunk.reset(List.of(SqlType.BIGINT, SqlType.NUMERIC, SqlType.DATE, SqlType.TIMESTAMP,
+                SqlType.TIMESTAMPTZ, SqlType.BOOLEAN, SqlType.TEXT));
+        chunk.add(new String[]{"42", "-0.5", "2024-03-15", "2000-01-01 00:00:01", "2000-01-01 00:00:00+01:00", "true", "héllo"});
+        chunk.add(new String[]{"", "", "1999-12-31", "2000-01-01", "2000-01-01T00:00:00Z", "false", ""});
+
+        String first = "0007"
+                + "00000008" + "000000000000002a"                             // int8 42
+                + "0000000a" + "0001ffff400000011388"                         // numeric -0.5
+                + "00000004" + "00002288"                                     // date 2024-03-15: 8840 days
+                + "00000008" + "00000000000f4240"                             // timestamp: 1 000 000 us
+                + "00000008" + "ffffffff296c5c00"                             // timestamptz: -3 600 000 000 us
+                + "00000001" + "01"                                           // bool true
+                + "00000006" + "68c3a96c6c6f";                                // text, UTF-8
+        String second = "0007"
+                + "ffffffff" + "ffffffff"                                     // NULL int8, NULL numeric
+                + "00000004" + "ffffffff"                                     // date: -1 day
+                + "00000008" + "0000000000000000"                             // timestamp at the epoch
+                + "00000008" + "0000000000000000"                             // timestamptz at the epoch
+                + "00000001" + "00"                                           // bool false
+                + "ffffffff";                                                 // NULL text
+        assertEquals(first, binary(out -> CopyTableLoader.writeBinaryRow(out, chunk, 0, chunk.columnCount())));
+        assertEquals(second, binary(out -> CopyTableLoader.writeBinaryRow(out, chunk, 1, chunk.columnCount())));
+    }
+
+    @Test
+    void escapesTextRows() throws IOException {
+        RowChunk chunk = new RowChunk(2);
+        chunk.reset(List.of(SqlType.TEXT, SqlType.BOOLEAN, SqlType.NUMERIC, SqlType.DATE));
+        chunk.add(new String[]{"a\tb\\c\nd", "t", "1.50", ""});
+
+        StringWriter out = new StringWriter();
+        CopyTableLoader.writeTextRow(out, chunk, 0, chunk.columnCount());
+        assertEquals("a\\tb\\\\c\\nd\tt\t1.50\t\\N\n", out.toString());
+    }
+
+    private static String numeric(String value) throws IOException {
+        return binary(out -> CopyTableLoader.writeBinaryNumeric(out, new BigDecimal(value)));
+    }
+
+    private static String binary(Encoder encoder) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        encoder.write(out);
+        out.flush();
+        return HexFormat.of().formatHex(bytes.toByteArray());
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
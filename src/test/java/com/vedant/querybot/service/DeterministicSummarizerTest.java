@@ -0,0 +1,48 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeterministicSummarizerTest {
+
+    @Test
+    void phrasesEmptyScalarAndSingleRowResults() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeterministicSummarizer summarizer = new DeterministicSummarizer(registry);
+
+        assertEquals(Optional.of("No rows matched your question."), summarizer.summarize(List.of(), "(no rows)", false));
+        assertEquals(Optional.of("The count is 42."), summarizer.summarize(List.of(Map.of("count", 42L)), "ROW1: count=42", false));
+        assertEquals(Optional.of("The average price is 12.3457."),
+                summarizer.summarize(List.of(Map.of("avg_price", new BigDecimal("12.345678901"))), "", false));
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("product", "Pen");
+        row.put("amount", 10);
+        assertEquals(Optional.of("Found 1 matching row: product=Pen, amount=10."),
+                summarizer.summarize(List.of(row), "ROW1: product=Pen; amount=10", false));
+
+        // multi-row results and conversational questions go to the LLM
+        assertTrue(summarizer.summarize(List.of(row, row), "ROW1: ... | ROW2: ...", false).isEmpty());
+        assertTrue(summarizer.summarize(List.of(Map.of("count", 42L)), "ROW1: count=42", true).isEmpty());
+
+        assertEquals(4.0, registry.get("query.summary").tag("source", "template").counter().count());
+        assertEquals(2.0, registry.get("query.summary").tag("source", "llm").counter().count());
+    }
+
+    @Test
+    void formatsNumbersCompactly() {
+        assertEquals("2.5", DeterministicSummarizer.format(2.50d));
+        assertEquals("1200", DeterministicSummarizer.format(new BigDecimal("1.2E+3")));
+        assertEquals("empty", DeterministicSummarizer.format(null));
+        assertEquals("result", DeterministicSummarizer.label("?column?"));
+        assertEquals("total sales", DeterministicSummarizer.label("sum_sales"));
+    }
+}
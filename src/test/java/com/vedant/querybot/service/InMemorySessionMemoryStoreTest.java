@@ -0,0 +1,34 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpSession;
+
+import jakarta.servlet.http.HttpSessionEvent;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySessionMemoryStoreTest {
+
+    @Test
+    void keepsLastMessagesAndEvictsDestroyedSessions() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InMemorySessionMemoryStore store = new InMemorySessionMemoryStore(registry, 100, 30, 3);
+
+        for (int i = 1; i <= 5; i++) store.append("s1", "user", "q" + i);
+        store.append("s2", "assistant", "FACTS: ROW1: a=1");
+
+        assertEquals(List.of(new SessionMemoryStore.Message("user", "q3"), new SessionMemoryStore.Message("user", "q4"),
+                new SessionMemoryStore.Message("user", "q5")), store.messages("s1"));
+        assertEquals(2.0, registry.get("query.session_memory.sessions").gauge().value());
+        assertEquals(4.0, registry.get("query.session_memory.messages").gauge().value());
+        assertTrue(registry.get("query.session_memory.bytes").gauge().value() > 0);
+
+        MockHttpSession session = new MockHttpSession(null, "s1");
+        new SessionMemoryCleanup(store).sessionDestroyed(new HttpSessionEvent(session));
+        assertTrue(store.messages("s1").isEmpty());
+        assertEquals(1, store.messages("s2").size());
+        assertTrue(store.messages("unknown").isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.ConversationMessage;
+import com.vedant.querybot.repository.ConversationMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JdbcSessionMemoryStoreTest {
+
+    @Test
+    void readsLastMessagesThroughLocalCache() {
+        ConversationMessageRepository repo = mock(ConversationMessageRepository.class);
+        when(repo.save(any(ConversationMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+        // newest first, as the index scan returns them
+        when(repo.findBySessionIdOrderByIdDesc("s1", Limit.of(2))).thenReturn(List.of(
+                new ConversationMessage("s1", "assistant", "FACTS: ROW1: a=1"),
+                new ConversationMessage("s1", "user", "q1")));
+
+        JdbcSessionMemoryStore store = new JdbcSessionMemoryStore(repo, new SimpleMeterRegistry(), 2, 30, 60, 100);
+
+        assertEquals(List.of(new SessionMemoryStore.Message("user", "q1"),
+                new SessionMemoryStore.Message("assistant", "FACTS: ROW1: a=1")), store.messages("s1"));
+
+        // appends go to the table and keep the cached view current without another query
+        store.append("s1", "user", "q2");
+        verify(repo).save(argThat(m -> m.getSessionId().equals("s1") && m.getContent().equals("q2")));
+        assertEquals(List.of(new SessionMemoryStore.Message("assistant", "FACTS: ROW1: a=1"),
+                new SessionMemoryStore.Message("user", "q2")), store.messages("s1"));
+        verify(repo, times(1)).findBySessionIdOrderByIdDesc(anyString(), any(Limit.class));
+
+        store.evict("s1");
+        verify(repo).deleteSession("s1");
+    }
+
+    @Test
+    void replicasSharingTheTableSeeTheSameConversation() {
+        // one conversation_message table behind two replicas
+        List<ConversationMessage> table = new ArrayList<>();
+        ConversationMessageRepository repo = mock(ConversationMessageRepository.class);
+        when(repo.save(any(ConversationMessage.class))).thenAnswer(inv -> {
+            synchronized (table) {
+                table.add(inv.getArgument(0));
+            }
+            return inv.getArgument(0);
+        });
+        when(repo.findBySessionIdOrderByIdDesc(anyString(), any(Limit.class))).thenAnswer(inv -> {
+            String id = inv.getArgument(0);
+            List<ConversationMessage> newest = new ArrayList<>();
+            synchronized (table) {
+                for (int i = table.size() - 1; i >= 0 && newest.size() < ((Limit) inv.getArgument(1)).max(); i--) {
+                    if (table.get(i).getSessionId().equals(id)) newest.add(table.get(i));
+                }
+            }
+            return newest;
+        });
+        JdbcSessionMemoryStore replicaA = new JdbcSessionMemoryStore(repo, new SimpleMeterRegistry(), 10, 30, 60, 100);
+        JdbcSessionMemoryStore replicaB = new JdbcSessionMemoryStore(repo, new SimpleMeterRegistry(), 10, 30, 60, 100);
+
+        // the client sends the same conversation id to whichever replica the balancer picks
+        replicaA.append("conv-7", "user", "top product?");
+        replicaA.append("conv-7", "assistant", "FACTS: ROW1: product=Pen");
+        replicaB.append("conv-7", "user", "and its price?");
+
+        List<SessionMemoryStore.Message> expected = List.of(new SessionMemoryStore.Message("user", "top product?"),
+                new SessionMemoryStore.Message("assistant", "FACTS: ROW1: product=Pen"),
+                new SessionMemoryStore.Message("user", "and its price?"));
+        assertEquals(expected, replicaB.messages("conv-7"));
+        assertEquals(expected, new JdbcSessionMemoryStore(repo, new SimpleMeterRegistry(), 10, 30, 60, 100).messages("conv-7"));
+        assertTrue(replicaB.messages("conv-8").isEmpty());
+    }
+
+    @Test
+    void purgesWholeSessionsByTheirNewestMessage() {
+        ConversationMessageRepository repo = mock(ConversationMessageRepository.class);
+        JdbcSessionMemoryStore store = new JdbcSessionMemoryStore(repo, new SimpleMeterRegistry(), 2, 30, 60, 100);
+
+        Instant before = Instant.now();
+        store.purgeIdleSessions();
+        // sessions idle for the TTL go as a unit; the cutoff is not applied to single messages
+        verify(repo).deleteSessionsIdleSince(argThat(cutoff ->
+                !cutoff.isBefore(before.minus(Duration.ofMinutes(30))) && !cutoff.isAfter(Instant.now().minus(Duration.ofMinutes(30)))));
+        verifyNoMoreInteractions(repo);
+    }
+}
@@ -0,0 +1,130 @@
+package com.vedant.querybot.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.vedant.querybot.util.TabularResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LLMServiceTest {
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void streamsSummaryDeltasFromEventStream() throws Exception {
+        String events = "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"Top film \"}}]}\n\n"
+                + ": keep-alive\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"is Heat.\\n\"}}]}\n\n"
+                + "data: [DONE]\n\n";
+        LLMService llm = serve(events);
+
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        String summary = llm.streamSummaryAsync("best film?", "movies", TabularResult.of(List.of(Map.of("title", "Heat"))),
+                "", "ROW1: title=Heat", false, tokens::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Top film ", "is Heat.\n"), tokens);
+        assertEquals("Top film is Heat.", summary);
+        // rows reach the prompt as "Row i: col=value" lines
+        assertEquals("Row 1: title=Heat\nRow 2: title=Ronin\n",
+                LLMService.promptRows(TabularResult.of(List.of(Map.of("title", "Heat"), Map.of("title", "Ronin")))));
+        assertEquals("[no rows returned]", LLMService.promptRows(TabularResult.empty()));
+    }
+
+    @Test
+    void summaryStreamCompletesWhenStoppedEarly() throws Exception {
+        String events = "data: {\"choices\":[{\"delta\":{\"content\":\"Top film \"}}]}\n\n"
+                + "data: {not json\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"is Heat.\"}}]}\n\n";
+        LLMService llm = serve(events);
+        TabularResult rows = TabularResult.of(List.of(Map.of("title", "Heat")));
+
+        // a malformed chunk ends the summary with the text received so far
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        assertEquals("Top film", llm.streamSummaryAsync("best film?", "movies", rows, "", "", false, tokens::add)
+                .get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Top film "), tokens);
+
+        // a consumer that throws (client gone) fails the summary instead of leaving it pending
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> llm.streamSummaryAsync("best film?", "movies",
+                rows, "", "", false, t -> { throw new UncheckedIOException(new IOException("client gone")); }).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UncheckedIOException.class, failed.getCause());
+    }
+
+    @Test
+    void summaryStreamIsBoundedByStreamTimeout() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write("data: {\"choices\":[{\"delta\":{\"content\":\"Top \"}}]}\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            // the model stalls mid-stream
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            out.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        LLMService llm = new LLMService("test-key", "http://127.0.0.1:" + server.getAddress().getPort() + "/chat", 1, 5, 1);
+
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        assertNull(llm.streamSummaryAsync("best film?", "movies", TabularResult.of(List.of(Map.of("title", "Heat"))),
+                "", "", false, tokens::add).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Top "), tokens);
+    }
+
+    @Test
+    void asyncSqlGenerationParsesCompletion() throws Exception {
+        LLMService llm = serve("{\"choices\":[{\"message\":{\"content\":\"```sql\\nSELECT title FROM movies LIMIT 1;\\n```\"}}]}");
+
+        LLMService.SqlGeneration sql = llm.generateSqlAsync("best film", "movies", List.of("title")).get(5, TimeUnit.SECONDS);
+
+        assertFalse(sql.fallback());
+        assertEquals("SELECT title FROM movies LIMIT 1", sql.sql());
+    }
+
+    @Test
+    void asyncSummaryParsesCompletion() throws Exception {
+        LLMService llm = serve("{\"choices\":[{\"message\":{\"content\":\"Heat is the top film.\"}}]}");
+
+        assertEquals("Heat is the top film.", llm.summarizeResultAsync("best film?", "movies",
+                TabularResult.of(List.of(Map.of("title", "Heat"))), "", "ROW1: title=Heat", false).get(5, TimeUnit.SECONDS));
+    }
+
+    private LLMService serve(String body) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        return new LLMService("test-key", "http://127.0.0.1:" + server.getAddress().getPort() + "/chat", 1, 5, 30);
+    }
+}
@@ -0,0 +1,70 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import com.vedant.querybot.repository.UploadedTableMetadataRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestTableCacheTest {
+
+    @Test
+    void servesCachedTableUntilAnUploadReplacesIt() {
+        UploadedTableMetadataRepository repo = mock(UploadedTableMetadataRepository.class);
+        when(repo.findTopByOrderByIdDesc()).thenReturn(Optional.of(meta(1L, "first", "{\"Name\":\"name\",\"Age\":\"age\"}")));
+        LatestTableCache cache = new LatestTableCache(repo, 300);
+
+        assertEquals("first", cache.latest().orElseThrow().tableName());
+        assertEquals(List.of("name", "age"), List.copyOf(cache.latest().orElseThrow().columns().values()));
+        verify(repo, times(1)).findTopByOrderByIdDesc();
+
+        cache.onTableUploaded(new TableUploadedEvent(meta(2L, "second", "{\"x\":\"x\"}"), null));
+        assertEquals("second", cache.latest().orElseThrow().tableName());
+        verify(repo, times(1)).findTopByOrderByIdDesc();
+
+        cache.invalidate();
+        assertEquals("first", cache.latest().orElseThrow().tableName());
+        verify(repo, times(2)).findTopByOrderByIdDesc();
+
+        // dropping another table keeps the entry; dropping the cached one forces a reload
+        cache.onTableDropped(new TableDroppedEvent("other"));
+        assertEquals("first", cache.latest().orElseThrow().tableName());
+        verify(repo, times(2)).findTopByOrderByIdDesc();
+        when(repo.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
+        cache.onTableDropped(new TableDroppedEvent("first"));
+        assertTrue(cache.latest().isEmpty());
+        verify(repo, times(3)).findTopByOrderByIdDesc();
+    }
+
+    @Test
+    void olderUploadFinishingLastDoesNotReplaceNewerTable() {
+        UploadedTableMetadataRepository repo = mock(UploadedTableMetadataRepository.class);
+        when(repo.findTopByOrderByIdDesc()).thenReturn(Optional.of(meta(1L, "first", "{}")));
+        LatestTableCache cache = new LatestTableCache(repo, 300);
+        assertEquals("first", cache.latest().orElseThrow().tableName());
+
+        // upload 3 finished before upload 2 on another worker
+        cache.onTableUploaded(new TableUploadedEvent(meta(3L, "third", "{}"), null));
+        cache.onTableUploaded(new TableUploadedEvent(meta(2L, "second", "{}"), null));
+        assertEquals("third", cache.latest().orElseThrow().tableName());
+        verify(repo, times(1)).findTopByOrderByIdDesc();
+
+        // nothing cached: an event is not trusted over the repository
+        cache.invalidate();
+        when(repo.findTopByOrderByIdDesc()).thenReturn(Optional.of(meta(3L, "third", "{}")));
+        cache.onTableUploaded(new TableUploadedEvent(meta(2L, "second", "{}"), null));
+        assertEquals("third", cache.latest().orElseThrow().tableName());
+    }
+
+    private static UploadedTableMetadata meta(Long id, String table, String columnsJson) {
+        UploadedTableMetadata m = new UploadedTableMetadata();
+        m.setId(id);
+        m.setTableName(table);
+        m.setColumnsJson(columnsJson);
+        return m;
+    }
+}
@@ -0,0 +1,35 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NlSqlCacheTest {
+
+    private static final TableSchema MOVIES = TableSchema.of("movies",
+            List.of(new TableSchema.Column("title", "Title", "text"), new TableSchema.Column("rating", "Rating", "double precision")));
+
+    @Test
+    void keysOnNormalizedQuestionSchemaAndContext() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NlSqlCache cache = new NlSqlCache(registry, true, 60, 100_000);
+        cache.put(NlSqlCache.key("Top 5 movies by rating?", MOVIES, null, null), "SELECT title FROM movies LIMIT 5");
+
+        assertEquals("SELECT title FROM movies LIMIT 5",
+                cache.get(NlSqlCache.key("  top 5   MOVIES by rating", MOVIES, null, null)).orElseThrow());
+        // a follow-up after a different turn, or a changed schema, is a different question
+        assertTrue(cache.get(NlSqlCache.key("top 5 movies by rating", MOVIES, "only comedies", null)).isEmpty());
+        TableSchema retyped = TableSchema.of("movies",
+                List.of(new TableSchema.Column("title", "Title", "text"), new TableSchema.Column("rating", "Rating", "text")));
+        assertTrue(cache.get(NlSqlCache.key("top 5 movies by rating", retyped, null, null)).isEmpty());
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "nl_sql").tag("result", "hit").functionCounter().count());
+
+        cache.onTableUploaded(new TableUploadedEvent(new UploadedTableMetadata(), MOVIES));
+        assertTrue(cache.get(NlSqlCache.key("top 5 movies by rating", MOVIES, null, null)).isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QueryCostGuardTest {
+
+    // a streaming scan under the row cap: cheap, although the query itself would return 5M rows
+    private static final String CAPPED_SCAN = "[{\"Plan\": {\"Node Type\": \"Limit\", \"Total Cost\": 42.5, \"Plan Rows\": 1001,"
+            + " \"Plans\": [{\"Node Type\": \"Seq Scan\", \"Total Cost\": 210000.0, \"Plan Rows\": 5000000}]}}]";
+    // a sort over the whole table has to finish before the Limit returns anything
+    private static final String CAPPED_SORT = "[{\"Plan\": {\"Node Type\": \"Limit\", \"Total Cost\": 2500000.0, \"Plan Rows\": 1001,"
+            + " \"Plans\": [{\"Node Type\": \"Sort\", \"Total Cost\": 2600000.0, \"Plan Rows\": 5000000}]}}]";
+
+    // statements prepared by the guard, with the query timeout set on each
+    private final List<String> explained = new CopyOnWriteArrayList<>();
+    private final List<Integer> timeouts = new CopyOnWriteArrayList<>();
+
+    @Test
+    void rejectsExpensivePlansAndCachesVerdictsUntilUpload() throws Exception {
+        JdbcTemplate jdbc = explaining(Map.of("EXPLAIN (FORMAT JSON) scan", CAPPED_SCAN, "EXPLAIN (FORMAT JSON) sort", CAPPED_SORT));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryCostGuard guard = new QueryCostGuard(jdbc, registry, true, 1_000_000, 100, 10, 2_500);
+
+        QueryCostGuard.Verdict verdict = guard.check("scan");
+        assertTrue(verdict.allowed());
+        assertEquals(5_000_000L, verdict.estimatedRows());
+        guard.check("scan");
+        assertEquals(List.of("EXPLAIN (FORMAT JSON) scan"), explained);
+        // the EXPLAIN is bounded too, rounded up to whole seconds
+        assertEquals(List.of(3), timeouts);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> guard.check("sort"));
+        assertTrue(ex.getMessage().contains("2500000"));
+        assertThrows(IllegalArgumentException.class, () -> guard.check("sort"));
+        assertEquals(List.of("EXPLAIN (FORMAT JSON) scan", "EXPLAIN (FORMAT JSON) sort"), explained);
+        assertEquals(2.0, registry.get("query.cost_guard").tag("verdict", "rejected").counter().count());
+
+        // new data changes the estimates
+        guard.onTableUploaded(null);
+        guard.check("scan");
+        assertEquals(3, explained.size());
+    }
+
+    @Test
+    void planningThatOutlastsTheTimeoutFailsAsTimeout() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenThrow(
+                new UncategorizedSQLException("explain", "EXPLAIN (FORMAT JSON) slow",
+                        new SQLException("canceling statement due to user request", "57014")));
+        QueryCostGuard guard = new QueryCostGuard(jdbc, new SimpleMeterRegistry(), true, 1_000_000, 100, 10, 1_000);
+
+        QueryTimeoutException ex = assertThrows(QueryTimeoutException.class, () -> guard.check("slow"));
+        assertTrue(ex.getMessage().contains("1000 ms"));
+        // not cached: the next attempt plans again
+        assertThrows(QueryTimeoutException.class, () -> guard.check("slow"));
+        verify(jdbc, times(2)).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    void disabledGuardDoesNotPlan() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        QueryCostGuard guard = new QueryCostGuard(jdbc, new SimpleMeterRegistry(), false, 1, 100, 10, 5_000);
+        assertNull(guard.check("anything"));
+        verifyNoInteractions(jdbc);
+    }
+
+    // JdbcTemplate whose statements answer with the given EXPLAIN output
+    private JdbcTemplate explaining(Map<String, String> plans) throws SQLException {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            String[] sql = new String[1];
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(i -> timeouts.add(i.getArgument(0))).when(ps).setQueryTimeout(anyInt());
+            Connection con = mock(Connection.class);
+            when(con.prepareStatement(anyString())).thenAnswer(i -> {
+                sql[0] = i.getArgument(0);
+                return ps;
+            });
+            ((PreparedStatementCreator) inv.getArgument(0)).createPreparedStatement(con);
+            explained.add(sql[0]);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.next()).thenReturn(true);
+            when(rs.getString(1)).thenReturn(plans.get(sql[0]));
+            return ((ResultSetExtractor<?>) inv.getArgument(1)).extractData(rs);
+        });
+        return jdbc;
+    }
+}
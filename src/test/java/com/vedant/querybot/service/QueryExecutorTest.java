@@ -0,0 +1,119 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class QueryExecutorTest {
+
+    @Test
+    void capsRowsWithServerSideLimitAndEstimatesTotal() throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        ResultSet rs = rows(10);
+        doAnswer(inv -> ((ResultSetExtractor<?>) inv.getArgument(1)).extractData(rs))
+                .when(jdbc).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        when(jdbc.queryForObject("EXPLAIN (FORMAT JSON) SELECT a FROM t", String.class))
+                .thenReturn("[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Plan Rows\": 123456}}]");
+
+        QueryExecutor executor = new QueryExecutor(jdbc, 3, 1 << 20, 50, 30_000);
+        List<Integer> batches = new ArrayList<>();
+        QueryExecutor.Result result = executor.execute("SELECT a FROM t ;", b -> batches.add(b.rowCount()), null, null);
+
+        assertEquals(3, result.rows().rowCount());
+        assertTrue(result.truncated());
+        assertEquals(123456L, result.totalRowsEstimate());
+        assertEquals(List.of(3), batches);
+        // only max-rows + 1 rows were pulled from the cursor
+        verify(rs, times(4)).next();
+
+        // the statement is wrapped with the cap and read forward-only with a fetch size
+        ArgumentCaptor<PreparedStatementCreator> psc = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbc).query(psc.capture(), any(ResultSetExtractor.class));
+        Connection con = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(con.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(ps);
+        psc.getValue().createPreparedStatement(con);
+        verify(con).prepareStatement("SELECT * FROM (\nSELECT a FROM t\n) AS capped LIMIT 4",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        verify(ps).setFetchSize(50);
+    }
+
+    @Test
+    void stopsAtByteBudgetAndReportsExactCountOtherwise() throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        ResultSet small = rows(2);
+        doAnswer(inv -> ((ResultSetExtractor<?>) inv.getArgument(1)).extractData(small))
+                .when(jdbc).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        QueryExecutor executor = new QueryExecutor(jdbc, 100, 1024, 50, 30_000);
+
+        QueryExecutor.Result all = executor.execute("SELECT a FROM t", null, null, null);
+        assertFalse(all.truncated());
+        assertEquals(2L, all.totalRowsEstimate());
+        verify(jdbc, never()).queryForObject(anyString(), eq(String.class));
+
+        // ~1 KB rows: the budget is passed after the first row; a failed EXPLAIN leaves the estimate unknown
+        ResultSet wide = rows(10, "x".repeat(600));
+        doAnswer(inv -> ((ResultSetExtractor<?>) inv.getArgument(1)).extractData(wide))
+                .when(jdbc).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        when(jdbc.queryForObject(anyString(), eq(String.class))).thenThrow(new DataRetrievalFailureException("no"));
+        QueryExecutor.Result capped = executor.execute("SELECT a FROM t", null, null, null);
+        assertTrue(capped.truncated());
+        assertEquals(1, capped.rows().rowCount());
+        assertNull(capped.totalRowsEstimate());
+    }
+
+    @Test
+    void appliesStatementTimeoutAndTranslatesAbortedStatements() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        QueryExecutor executor = new QueryExecutor(jdbc, 100, 1 << 20, 50, 2_000);
+        UncategorizedSQLException aborted = new UncategorizedSQLException("query", "SELECT a FROM t",
+                new SQLException("canceling statement due to statement timeout", "57014"));
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenThrow(aborted);
+
+        QueryTimeoutException timeout = assertThrows(QueryTimeoutException.class,
+                () -> executor.execute("SELECT a FROM t", null, null, null));
+        assertTrue(timeout.getMessage().contains("2000 ms"));
+        verify(jdbc).execute("SET LOCAL statement_timeout = 2000");
+
+        // the same SQLSTATE after an explicit cancel is reported as a cancellation
+        RunningQueries running = new RunningQueries(new SimpleMeterRegistry());
+        RunningQueries.Handle handle = running.start("q1", "s1");
+        running.cancel("q1", "s1");
+        assertThrows(QueryCancelledException.class, () -> executor.execute("SELECT a FROM t", null, handle, null));
+    }
+
+    private static ResultSet rows(int n) throws Exception {
+        return rows(n, null);
+    }
+
+    // single-column result set "a" with n rows (values 1..n, or the given text)
+    private static ResultSet rows(int n, String text) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(md);
+        when(md.getColumnCount()).thenReturn(1);
+        when(md.getColumnLabel(1)).thenReturn("a");
+        int[] cursor = {0};
+        when(rs.next()).thenAnswer(inv -> ++cursor[0] <= n);
+        when(rs.getObject(1)).thenAnswer(inv -> text != null ? text : (Object) (long) cursor[0]);
+        return rs;
+    }
+}
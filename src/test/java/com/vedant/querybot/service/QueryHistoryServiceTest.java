@@ -0,0 +1,49 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.QueryHistory;
+import com.vedant.querybot.repository.HistoryCursor;
+import com.vedant.querybot.repository.QueryHistoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class QueryHistoryServiceTest {
+
+    @Test
+    void pagesWithOneRowLookaheadAndClampsLimit() {
+        QueryHistoryRepository repo = mock(QueryHistoryRepository.class);
+        QueryHistoryService service = new QueryHistoryService(repo, 2, 3);
+        when(repo.findPage(any(), any(), any(), anyInt())).thenReturn(rows(3, 2, 1));
+
+        QueryHistoryService.Page page = service.page("movies", null, null, null);
+        verify(repo).findPage("movies", null, null, 3);
+        assertEquals(2, page.items().size());
+        // the cursor points at the last row returned, not the look-ahead row
+        assertEquals(new HistoryCursor(Instant.ofEpochSecond(2), 2), HistoryCursor.decode(page.nextCursor()));
+
+        when(repo.findPage(any(), any(), any(), anyInt())).thenReturn(rows(1));
+        QueryHistoryService.Page last = service.page(null, "top", page.nextCursor(), 500);
+        verify(repo).findPage(null, "top", new HistoryCursor(Instant.ofEpochSecond(2), 2), 4);
+        assertEquals(1, last.items().size());
+        assertNull(last.nextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> service.page(null, null, "%%%", 1));
+    }
+
+    private static List<QueryHistory> rows(long... ids) {
+        List<QueryHistory> rows = new ArrayList<>();
+        for (long id : ids) {
+            QueryHistory h = new QueryHistory();
+            h.setId(id);
+            h.setExecutedAt(Instant.ofEpochSecond(id));
+            rows.add(h);
+        }
+        return rows;
+    }
+}
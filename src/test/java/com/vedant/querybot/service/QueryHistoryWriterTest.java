@@ -0,0 +1,63 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.util.PreviewCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QueryHistoryWriterTest {
+
+    @Test
+    void dropsOldestWhenFullAndFlushesAsOneMultiRowInsert() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // not started: records stay queued until close() flushes them
+        QueryHistoryWriter writer = new QueryHistoryWriter(jdbc, registry, 2, "drop-oldest", 10, 100, 1);
+
+        writer.enqueue(entry("q1"));
+        writer.enqueue(entry("q2"));
+        writer.enqueue(entry("q3"));
+        assertEquals(2, writer.pending());
+        assertEquals(1.0, registry.get("query.history.dropped").counter().count());
+        assertEquals(2.0, registry.get("query.history.queue.depth").gauge().value());
+
+        writer.close();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc, times(1)).update(sql.capture(), args.capture());
+        assertTrue(sql.getValue().endsWith("VALUES (?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?)"));
+        assertEquals("q2", args.getValue()[0]);
+        // previews are trimmed to preview-rows and stored in the compact encoding
+        assertEquals(List.of(Map.of("a", 1L)), PreviewCodec.decode((String) args.getValue()[3]));
+        assertEquals("movies", args.getValue()[2]);
+        assertEquals(QueryHistoryWriter.STATUS_OK, args.getValue()[5]);
+        assertEquals(12L, args.getValue()[6]);
+        assertEquals("q3", args.getValue()[7]);
+        assertEquals(2.0, registry.get("query.history.written").counter().count());
+        assertEquals(0, writer.pending());
+    }
+
+    @Test
+    void backgroundThreadWritesQueuedRecords() throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        QueryHistoryWriter writer = new QueryHistoryWriter(jdbc, new SimpleMeterRegistry(), 100, "block", 50, 20, 50);
+        writer.start();
+        writer.enqueue(entry("q1"));
+        verify(jdbc, timeout(2000)).update(anyString(), any(Object[].class));
+        writer.close();
+    }
+
+    private static QueryHistoryWriter.Entry entry(String question) {
+        return new QueryHistoryWriter.Entry(question, "SELECT 1", "movies", List.of(Map.of("a", 1), Map.of("a", 2)), Instant.now(),
+                QueryHistoryWriter.STATUS_OK, 12);
+    }
+}
@@ -0,0 +1,59 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import com.vedant.querybot.util.TabularResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryResultCacheTest {
+
+    @Test
+    void servesSameSqlPerTableUntilTheTableChanges() {
+        QueryResultCache cache = new QueryResultCache(new SimpleMeterRegistry(), true, 1 << 20, 1 << 16, 60);
+        List<Map<String, Object>> rows = List.of(Map.of("category", "books", "total", 42L), Map.of("category", "music", "total", 7L));
+        cache.put(QueryResultCache.key("sales", "SELECT category, SUM(x) AS total\n  FROM sales GROUP BY 1;"),
+                new QueryExecutor.Result(TabularResult.of(rows), true, 900L));
+
+        // whitespace and the terminator do not matter, literals and the table do
+        QueryExecutor.Result hit = cache.get(QueryResultCache.key("sales", "SELECT category, SUM(x) AS total FROM sales GROUP BY 1")).orElseThrow();
+        assertEquals(rows, hit.rows().asMaps());
+        assertTrue(hit.truncated());
+        assertEquals(900L, hit.totalRowsEstimate());
+        assertTrue(cache.get(QueryResultCache.key("sales_2", "SELECT category, SUM(x) AS total FROM sales GROUP BY 1")).isEmpty());
+        assertEquals("SELECT * FROM t WHERE name = 'a  b'", QueryResultCache.normalize("SELECT *  FROM t\nWHERE name = 'a  b' ;"));
+        // a "--" comment ends at its newline: the filter on the next line must stay in the key
+        assertEquals("SELECT * FROM t WHERE x = 1", QueryResultCache.normalize("SELECT * FROM t -- all rows\nWHERE x = 1"));
+        assertEquals("SELECT * FROM t", QueryResultCache.normalize("SELECT * FROM t -- WHERE x = 1"));
+        assertNotEquals(QueryResultCache.normalize("SELECT * FROM t -- note\nWHERE x = 1"),
+                QueryResultCache.normalize("SELECT * FROM t -- note WHERE x = 1"));
+        assertEquals("SELECT a, '--kept' FROM t", QueryResultCache.normalize("SELECT a, /* outer /* inner */ still */ '--kept' FROM t;"));
+
+        cache.onTableDropped(new TableDroppedEvent("other"));
+        assertEquals(1, cache.size());
+        UploadedTableMetadata meta = new UploadedTableMetadata();
+        meta.setTableName("sales");
+        cache.onTableUploaded(new TableUploadedEvent(meta, null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void skipsResultsItCannotReproduceOrThatAreTooLarge() {
+        QueryResultCache cache = new QueryResultCache(new SimpleMeterRegistry(), true, 1 << 20, 200, 60);
+        cache.put(QueryResultCache.key("t", "dates"),
+                new QueryExecutor.Result(TabularResult.of(List.of(Map.of("day", Date.valueOf("2024-01-01")))), false, 1L));
+        // random text does not deflate below the 200-byte entry limit
+        StringBuilder noise = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) noise.append((char) ('a' + random.nextInt(26)));
+        cache.put(QueryResultCache.key("t", "big"),
+                new QueryExecutor.Result(TabularResult.of(List.of(Map.of("text", noise.toString()))), false, 1L));
+        assertEquals(0, cache.size());
+    }
+}
@@ -1,14 +1,20 @@
 package com.vedant.querybot.service;
 
-import com.vedant.querybot.entity.QueryHistory;
 import com.vedant.querybot.entity.UploadedTableMetadata;
-import com.vedant.querybot.repository.QueryHistoryRepository;
 import com.vedant.querybot.repository.UploadedTableMetadataRepository;
+import com.vedant.querybot.util.TabularResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,23 +25,167 @@ class QueryServiceTest {
     void executesSelectAndStoresHistory() {
         LLMService llm = mock(LLMService.class);
         JdbcTemplate jdbc = mock(JdbcTemplate.class);
-        QueryHistoryRepository repo = mock(QueryHistoryRepository.class);
+        QueryHistoryWriter history = mock(QueryHistoryWriter.class);
         UploadedTableMetadataRepository metaRepo = mock(UploadedTableMetadataRepository.class);
 
         // Provide a latest uploaded table metadata so the service doesn't throw
         UploadedTableMetadata meta = new UploadedTableMetadata();
         meta.setTableName("my_table");
         meta.setColumnsJson("{\"a\":\"a\"}");
-        when(metaRepo.findAll()).thenReturn(List.of(meta));
+        List<String> lookupThreads = new CopyOnWriteArrayList<>();
+        when(metaRepo.findTopByOrderByIdDesc()).thenAnswer(inv -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            return Optional.of(meta);
+        });
 
-        when(llm.generateSqlFromNl(anyString(), anyString(), anyList())).thenReturn("SELECT * FROM my_table LIMIT 10");
-        when(jdbc.queryForList("SELECT * FROM my_table LIMIT 10")).thenReturn(List.of(Map.of("a", 1)));
+        when(llm.generateSqlAsync(anyString(), anyString(), anyList())).thenReturn(
+                CompletableFuture.completedFuture(new LLMService.SqlGeneration("SELECT * FROM my_table LIMIT 10", false)));
+        QueryExecutor executor = mock(QueryExecutor.class);
+        when(executor.execute(eq("SELECT * FROM my_table LIMIT 10"), isNull(), any(), any()))
+                .thenReturn(new QueryExecutor.Result(TabularResult.of(List.of(Map.of("a", 1))), false, 1L));
 
-        QueryService svc = new QueryService(llm, jdbc, repo, metaRepo);
+        QueryService svc = new QueryService(llm, executor, history, new LatestTableCache(metaRepo, 30),
+                new TableSchemaCache(jdbc, 16), new NlSqlCache(new SimpleMeterRegistry(), true, 60, 100_000),
+                new SemanticSqlCache(new HashingEmbedder(256), new SimpleMeterRegistry(), true, 0.92, 64, 4),
+                new QueryWorkerPool(2, 16), new DeterministicSummarizer(new SimpleMeterRegistry()),
+                new RunningQueries(new SimpleMeterRegistry()), disabledCostGuard(), resultCache(),
+                new InMemorySessionMemoryStore(new SimpleMeterRegistry(), 100, 30, 10));
         var result = svc.executeNlQueryWithSummary("show me data", "my_table", null);
 
         assertNotNull(result);
-        assertEquals(1, result.rows().size());
-        verify(repo, times(1)).save(any(QueryHistory.class));
+        // the database lookups before the model call happen on a query worker, not the caller's thread
+        assertEquals(1, lookupThreads.size());
+        assertTrue(lookupThreads.get(0).startsWith("query-"), lookupThreads.get(0));
+        assertEquals(1, result.rows().rowCount());
+        assertFalse(result.truncated());
+        // a single scalar is phrased without the summary call
+        assertEquals("The a is 1.", result.nlAnswer());
+        verify(llm, never()).summarizeResultAsync(anyString(), anyString(), any(), any(), any(), anyBoolean());
+        verify(history, times(1)).enqueue(argThat(e -> e.generatedSql().equals("SELECT * FROM my_table LIMIT 10")
+                && e.nlQuery().equals("show me data") && e.previewRows().size() == 1));
+
+        // the latest table is looked up once and then served from the cache; the repeated
+        // (differently spelled) question is answered from the SQL cache without calling the model
+        var repeated = svc.executeNlQueryWithSummary("  Show me   DATA. ", "my_table", null);
+        assertEquals(1L, repeated.rows().get(0, 0));
+        verify(metaRepo, times(1)).findTopByOrderByIdDesc();
+        verify(metaRepo, never()).findAll();
+        verify(llm, times(1)).generateSqlAsync(anyString(), anyString(), anyList());
+        // ... and the same SQL against the unchanged table is answered from the result cache
+        verify(executor, times(1)).execute(anyString(), any(), any(), any());
+        verify(history, times(2)).enqueue(any(QueryHistoryWriter.Entry.class));
+
+        // the async variant reports validation failures through the future
+        assertThrows(IllegalArgumentException.class, () -> svc.executeNlQueryWithSummary("show me data", "other_table", null));
+        CompletionException failed = assertThrows(CompletionException.class,
+                () -> svc.executeNlQueryWithSummaryAsync("show me data", "other_table", null).join());
+        assertInstanceOf(IllegalArgumentException.class, failed.getCause());
+    }
+
+    @Test
+    void streamsSqlRowsAndSummaryTokens() throws Exception {
+        LLMService llm = mock(LLMService.class);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        UploadedTableMetadataRepository metaRepo = mock(UploadedTableMetadataRepository.class);
+        UploadedTableMetadata meta = new UploadedTableMetadata();
+        meta.setTableName("my_table");
+        meta.setColumnsJson("{\"a\":\"a\"}");
+        when(metaRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(meta));
+
+        when(llm.generateSqlAsync(anyString(), anyString(), anyList())).thenReturn(
+                CompletableFuture.completedFuture(new LLMService.SqlGeneration("SELECT a FROM my_table", false)));
+        when(llm.streamSummaryAsync(anyString(), anyString(), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(inv -> {
+                    Consumer<String> onToken = inv.getArgument(6);
+                    onToken.accept("Two ");
+                    onToken.accept("rows.");
+                    return CompletableFuture.completedFuture("Two rows.");
+                });
+
+        // a two-row result, capped at the row budget, delivered as one batch while fetched
+        QueryExecutor executor = mock(QueryExecutor.class);
+        when(executor.execute(eq("SELECT a FROM my_table"), any(), any(), any())).thenAnswer(inv -> {
+            TabularResult rows = TabularResult.of(List.of(Map.of("a", 1L), Map.of("a", 2L)));
+            Consumer<TabularResult> onBatch = inv.getArgument(1);
+            onBatch.accept(rows);
+            return new QueryExecutor.Result(rows, true, 5000L);
+        });
+
+        QueryService svc = new QueryService(llm, executor, mock(QueryHistoryWriter.class), new LatestTableCache(metaRepo, 30),
+                new TableSchemaCache(jdbc, 16), new NlSqlCache(new SimpleMeterRegistry(), true, 60, 100_000),
+                new SemanticSqlCache(new HashingEmbedder(256), new SimpleMeterRegistry(), true, 0.92, 64, 4),
+                new QueryWorkerPool(2, 16), new DeterministicSummarizer(new SimpleMeterRegistry()),
+                new RunningQueries(new SimpleMeterRegistry()), disabledCostGuard(), resultCache(),
+                new InMemorySessionMemoryStore(new SimpleMeterRegistry(), 100, 30, 10));
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        var result = svc.streamNlQuery("list a", null, "s1", "q-1", new QueryStreamListener() {
+            @Override
+            public void onSql(String sql) {
+                events.add("sql:" + sql);
+            }
+
+            @Override
+            public void onRows(TabularResult rows) {
+                events.add("rows:" + rows.rowCount());
+            }
+
+            @Override
+            public void onToken(String token) {
+                events.add("token:" + token);
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("sql:SELECT a FROM my_table", "rows:2", "token:Two ", "token:rows."), events);
+        assertEquals(2, result.rows().rowCount());
+        assertEquals("Two rows.", result.nlAnswer());
+        assertTrue(result.truncated());
+        assertEquals(5000L, result.totalRowsEstimate());
+        // the summarizer is told the rows are only the first part of the result
+        verify(llm).streamSummaryAsync(anyString(), anyString(), any(), any(),
+                argThat(facts -> facts.contains("truncated to the first 2 rows of about 5000")), anyBoolean(), any());
+    }
+
+    @Test
+    void recordsCancelledSqlInHistory() {
+        LLMService llm = mock(LLMService.class);
+        QueryHistoryWriter history = mock(QueryHistoryWriter.class);
+        UploadedTableMetadataRepository metaRepo = mock(UploadedTableMetadataRepository.class);
+        UploadedTableMetadata meta = new UploadedTableMetadata();
+        meta.setTableName("my_table");
+        meta.setColumnsJson("{\"a\":\"a\"}");
+        when(metaRepo.findTopByOrderByIdDesc()).thenReturn(Optional.of(meta));
+        when(llm.generateSqlAsync(anyString(), anyString(), anyList())).thenReturn(
+                CompletableFuture.completedFuture(new LLMService.SqlGeneration("SELECT a FROM my_table", false)));
+
+        RunningQueries running = new RunningQueries(new SimpleMeterRegistry());
+        QueryExecutor executor = mock(QueryExecutor.class);
+        // the client cancels while the statement runs
+        when(executor.execute(anyString(), any(), any(), any())).thenAnswer(inv -> {
+            running.cancel("q-9", "s1");
+            throw new QueryCancelledException("q-9");
+        });
+
+        QueryService svc = new QueryService(llm, executor, history, new LatestTableCache(metaRepo, 30),
+                new TableSchemaCache(mock(JdbcTemplate.class), 16), new NlSqlCache(new SimpleMeterRegistry(), true, 60, 100_000),
+                new SemanticSqlCache(new HashingEmbedder(256), new SimpleMeterRegistry(), true, 0.92, 64, 4),
+                new QueryWorkerPool(2, 16), new DeterministicSummarizer(new SimpleMeterRegistry()), running, disabledCostGuard(), resultCache(),
+                new InMemorySessionMemoryStore(new SimpleMeterRegistry(), 100, 30, 10));
+
+        CompletionException failed = assertThrows(CompletionException.class,
+                () -> svc.executeNlQueryWithSummaryAsync("list a", null, "s1", "q-9").join());
+        assertInstanceOf(QueryCancelledException.class, failed.getCause());
+        verify(history).enqueue(argThat(e -> e.status().equals(QueryHistoryWriter.STATUS_CANCELLED)
+                && e.generatedSql().equals("SELECT a FROM my_table") && e.elapsedMs() >= 0));
+        verify(llm, never()).summarizeResultAsync(anyString(), anyString(), any(), any(), any(), anyBoolean());
+        assertEquals(0, running.size());
+    }
+
+    private static QueryCostGuard disabledCostGuard() {
+        return new QueryCostGuard(mock(JdbcTemplate.class), new SimpleMeterRegistry(), false, 1000, 100, 10, 5000);
+    }
+
+    private static QueryResultCache resultCache() {
+        return new QueryResultCache(new SimpleMeterRegistry(), true, 1 << 20, 1 << 16, 60);
     }
 }
@@ -0,0 +1,44 @@
+package com.vedant.querybot.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RunningQueriesTest {
+
+    @Test
+    void cancelsOnlyOwnRunningQueriesAndTheirStatements() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RunningQueries running = new RunningQueries(registry);
+        RunningQueries.Handle handle = running.start("q-1", "s1");
+        Statement statement = mock(Statement.class);
+        handle.attach(statement);
+
+        assertThrows(IllegalArgumentException.class, () -> running.start("q-1", "s1"));
+        assertThrows(IllegalArgumentException.class, () -> running.start("bad id!", "s1"));
+        assertNotNull(running.start(null, "s1").id());
+
+        // another session cannot cancel it
+        assertFalse(running.cancel("q-1", "s2"));
+        assertFalse(handle.isCancelled());
+
+        assertTrue(running.cancel("q-1", "s1"));
+        verify(statement).cancel();
+        assertThrows(QueryCancelledException.class, handle::throwIfCancelled);
+        assertFalse(running.cancel("q-1", "s1"));
+        assertEquals(1.0, registry.get("query.cancelled").counter().count());
+
+        // a statement attached after the cancel is cancelled straight away
+        Statement late = mock(Statement.class);
+        assertThrows(QueryCancelledException.class, () -> handle.attach(late));
+        verify(late).cancel();
+
+        running.finish(handle);
+        assertFalse(running.cancel("q-1", "s1"));
+        assertEquals(1, running.size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SemanticSqlCacheTest {
+
+    private static final TableSchema MOVIES = TableSchema.of("movies",
+            List.of(new TableSchema.Column("title", "Title", "text"), new TableSchema.Column("rating", "Rating", "double precision")));
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SemanticSqlCache cache = new SemanticSqlCache(new HashingEmbedder(512), registry, true, 0.92, 2, 4);
+
+    @Test
+    void reusesSqlForParaphrasedQuestion() {
+        cache.put(probe("highest rated film", null), "SELECT title FROM movies ORDER BY rating DESC LIMIT 1");
+
+        assertEquals("SELECT title FROM movies ORDER BY rating DESC LIMIT 1",
+                cache.find(probe("Which movie has the best rating?", null)).orElseThrow());
+        assertTrue(cache.find(probe("lowest rated film", null)).isEmpty());
+        // same words, different context or different numbers are different questions
+        assertTrue(cache.find(probe("highest rated film", "only comedies")).isEmpty());
+
+        assertEquals(1.0, registry.get("query.semantic_cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("query.semantic_cache.lookups").tag("result", "miss").counter().count());
+        assertEquals(1.0 / 3, registry.get("query.semantic_cache.hit_ratio").gauge().value(), 1e-9);
+        assertEquals(3, registry.get("query.semantic_cache.lookup").timer().count());
+    }
+
+    @Test
+    void numbersMustMatchAndIndexIsBounded() {
+        cache.put(probe("top 5 movies by rating", null), "SELECT title FROM movies ORDER BY rating DESC LIMIT 5");
+        assertTrue(cache.find(probe("top 10 movies by rating", null)).isEmpty());
+
+        cache.put(probe("count movies", null), "SELECT count(*) FROM movies");
+        cache.put(probe("count movies", null), "SELECT count(*) AS n FROM movies");   // replaces, does not grow
+        assertEquals(2, cache.size());
+        cache.put(probe("average rating", null), "SELECT avg(rating) FROM movies");    // evicts the oldest entry
+        assertEquals(2, cache.size());
+        assertTrue(cache.find(probe("top 5 movies by rating", null)).isEmpty());
+        assertEquals("SELECT count(*) AS n FROM movies", cache.find(probe("count movies", null)).orElseThrow());
+
+        cache.onTableUploaded(new TableUploadedEvent(new UploadedTableMetadata(), MOVIES));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void doesNotMatchQuestionsThatSwapRoles() {
+        TableSchema shop = TableSchema.of("shop",
+                List.of(new TableSchema.Column("customer", "Customer", "text"), new TableSchema.Column("orders", "Orders", "bigint")));
+        SemanticSqlCache.Probe stored = cache.probe("shop", NlSqlCache.key("customers with the most orders", shop, null, null)).join();
+        SemanticSqlCache.Probe swapped = cache.probe("shop", NlSqlCache.key("orders with the most customers", shop, null, null)).join();
+        // the bag-of-words embedder cannot tell them apart ...
+        assertEquals(1.0, dot(stored.vector(), swapped.vector()), 1e-6);
+
+        cache.put(stored, "SELECT customer FROM shop ORDER BY orders DESC LIMIT 1");
+        // ... but the cache does not serve one for the other
+        assertTrue(cache.find(swapped).isEmpty());
+        assertTrue(cache.find(cache.probe("shop", NlSqlCache.key("customers with the most orders?", shop, null, null)).join()).isPresent());
+    }
+
+    @Test
+    void disabledWithoutEmbedder() {
+        SemanticSqlCache off = new SemanticSqlCache(null, new SimpleMeterRegistry(), true, 0.92, 2, 4);
+        SemanticSqlCache.Probe p = off.probe("movies", NlSqlCache.key("highest rated film", MOVIES, null, null)).join();
+        off.put(p, "SELECT 1");
+        assertTrue(off.find(p).isEmpty());
+        assertEquals(0, off.size());
+    }
+
+    @Test
+    void probeWaitsForEmbeddingWithoutBlocking() {
+        CompletableFuture<float[]> pending = new CompletableFuture<>();
+        SemanticSqlCache async = new SemanticSqlCache(remote(pending), new SimpleMeterRegistry(), true, 0.92, 2, 4);
+
+        CompletableFuture<SemanticSqlCache.Probe> probe = async.probe("movies", NlSqlCache.key("highest rated film", MOVIES, null, null));
+        assertFalse(probe.isDone());
+        pending.complete(new float[] {1, 0});
+        assertArrayEquals(new float[] {1, 0}, probe.join().vector());
+
+        // a failed embedding is a miss, not a failed question
+        SemanticSqlCache broken = new SemanticSqlCache(remote(CompletableFuture.failedFuture(new IllegalStateException("503"))),
+                new SimpleMeterRegistry(), true, 0.92, 2, 4);
+        assertNull(broken.probe("movies", NlSqlCache.key("highest rated film", MOVIES, null, null)).join().vector());
+    }
+
+    // An embedder that only answers through embedAsync, like one backed by a remote endpoint
+    private static Embedder remote(CompletableFuture<float[]> result) {
+        return new Embedder() {
+            @Override
+            public float[] embed(String text) {
+                throw new AssertionError("the question path must not call the blocking embed()");
+            }
+
+            @Override
+            public CompletableFuture<float[]> embedAsync(String text) {
+                return result;
+            }
+
+            @Override
+            public int dimensions() {
+                return 2;
+            }
+        };
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    private SemanticSqlCache.Probe probe(String question, String previousUserTurn) {
+        return cache.probe("movies", NlSqlCache.key(question, MOVIES, previousUserTurn, null)).join();
+    }
+}
@@ -0,0 +1,47 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TableSchemaCacheTest {
+
+    @Test
+    void usesDescriptorFromUploadAndFallsBackToStoredMapping() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        TableSchemaCache cache = new TableSchemaCache(jdbc, 16);
+
+        TableSchema uploaded = TableSchema.of("sales", List.of(
+                new TableSchema.Column("name", "Name", "text"),
+                new TableSchema.Column("price", "Price", "double precision")));
+        cache.onTableUploaded(new TableUploadedEvent(new UploadedTableMetadata(), uploaded));
+        TableSchema hit = cache.get("sales", null);
+        assertSame(uploaded, hit);
+        assertEquals(List.of("name", "price"), hit.columnNames());
+        assertTrue(hit.promptFragment().contains(" - price (double precision)\n"));
+        verifyNoInteractions(jdbc);
+
+        // miss with no catalog rows (mocked JdbcTemplate): described from the stored header mapping
+        Map<String, String> mapping = new LinkedHashMap<>();
+        mapping.put("First Name", "first_name");
+        TableSchema described = cache.get("people", mapping);
+        assertEquals(List.of("first_name"), described.columnNames());
+        assertEquals("First Name", described.columns().get(0).originalName());
+        assertSame(described, cache.get("people", mapping));
+
+        // dropped tables are described again (from the catalog) if a table of that name comes back
+        cache.onTableDropped(new TableDroppedEvent("people"));
+        assertNotSame(described, cache.get("people", mapping));
+        cache.onTableDropped(new TableDroppedEvent("sales"));
+        assertNotSame(uploaded, cache.get("sales", null));
+        verify(jdbc, times(3)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,189 @@
+package com.vedant.querybot.service;
+
+import com.vedant.querybot.controller.FileUploadController;
+import com.vedant.querybot.dto.UploadJobDTO;
+import com.vedant.querybot.entity.UploadedTableMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UploadJobServiceTest {
+
+    private final FileService fileService = mock(FileService.class);
+    private final List<UploadJobService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(UploadJobService::shutdown);
+    }
+
+    @Test
+    void importsSpooledFileAndReportsProgress() throws Exception {
+        List<String> spooled = new ArrayList<>();
+        when(fileService.processUpload(eq("sales.csv"), any(Path.class), isNull(), any(UploadProgress.class))).thenAnswer(inv -> {
+            // the worker reads the copy spooled by submit(), not the request's multipart body
+            spooled.add(Files.readString(inv.getArgument(1), StandardCharsets.UTF_8));
+            UploadProgress progress = inv.getArgument(3);
+            progress.rowsParsed(2);
+            progress.rowsInserted(2);
+            return meta("sales_1");
+        });
+        UploadJobService service = service(1, 4, 60);
+
+        UploadJob job = service.submit(csv("sales.csv"), null);
+        awaitFinished(job);
+
+        assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+        assertEquals("sales_1", job.getTableName());
+        assertEquals(2, job.getRowsParsed());
+        assertEquals(2, job.getRowsInserted());
+        assertNotNull(job.getStartedAt());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(List.of("a,b\n1,2\n3,4\n"), spooled);
+        assertFalse(Files.exists(job.getSpoolFile()));
+        assertSame(job, service.get(job.getId()).orElseThrow());
+    }
+
+    @Test
+    void failedImportKeepsErrorAndDeletesSpool() throws Exception {
+        when(fileService.processUpload(anyString(), any(Path.class), any(), any(UploadProgress.class)))
+                .thenThrow(new IllegalArgumentException("Unsupported file type"));
+        UploadJobService service = service(1, 4, 60);
+
+        UploadJob job = service.submit(csv("notes.txt"), null);
+        awaitFinished(job);
+
+        assertEquals(UploadJob.Status.FAILED, job.getStatus());
+        assertEquals("Unsupported file type", job.getError());
+        assertNull(job.getTableName());
+        assertFalse(Files.exists(job.getSpoolFile()));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullAndCancelsQueuedJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fileService.processUpload(anyString(), any(Path.class), any(), any(UploadProgress.class))).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return meta("first_1");
+        });
+        UploadJobService service = service(1, 1, 60);
+        FileUploadController controller = new FileUploadController(service);
+
+        UploadJob running = service.submit(csv("first.csv"), null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        UploadJob queued = service.submit(csv("second.csv"), null);
+        assertEquals(UploadJob.Status.QUEUED, queued.getStatus());
+
+        // one worker busy, one job queued: the next upload is refused and nothing is left behind
+        try (var tmp = Files.list(running.getSpoolFile().getParent())) {
+            long spools = tmp.filter(p -> p.getFileName().toString().startsWith("querybot-upload-")).count();
+            assertThrows(RejectedExecutionException.class, () -> service.submit(csv("third.csv"), null));
+            ResponseEntity<UploadJobDTO> refused = controller.upload(csv("third.csv"), null);
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+            try (var after = Files.list(running.getSpoolFile().getParent())) {
+                assertEquals(spools, after.filter(p -> p.getFileName().toString().startsWith("querybot-upload-")).count());
+            }
+        }
+
+        // a queued job is cancelled at once and its spool removed; it never reaches the importer
+        assertEquals(UploadJob.Status.CANCELLED, service.cancel(queued.getId()).orElseThrow().getStatus());
+        assertFalse(Files.exists(queued.getSpoolFile()));
+
+        release.countDown();
+        awaitFinished(running);
+        assertEquals(UploadJob.Status.COMPLETED, running.getStatus());
+        verify(fileService, times(1)).processUpload(anyString(), any(Path.class), any(), any(UploadProgress.class));
+        assertTrue(service.cancel("missing").isEmpty());
+    }
+
+    @Test
+    void deleteEndpointStopsRunningJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(fileService.processUpload(anyString(), any(Path.class), any(), any(UploadProgress.class))).thenAnswer(inv -> {
+            UploadProgress progress = inv.getArgument(3);
+            progress.rowsInserted(10);
+            started.countDown();
+            // like FileService: the cancel flag is checked between chunks
+            while (!progress.isCancelled()) {
+                progress.rowsInserted(10);
+                Thread.sleep(5);
+            }
+            throw new CancellationException("Upload cancelled");
+        });
+        UploadJobService service = service(1, 4, 60);
+        FileUploadController controller = new FileUploadController(service);
+
+        UploadJob job = service.submit(csv("big.csv"), null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(UploadJob.Status.RUNNING, job.getStatus());
+
+        ResponseEntity<UploadJobDTO> response = controller.cancel(job.getId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Cancellation requested", response.getBody().getMessage());
+        awaitFinished(job);
+
+        assertEquals(UploadJob.Status.CANCELLED, job.getStatus());
+        assertTrue(job.getRowsInserted() > 0);
+        assertFalse(Files.exists(job.getSpoolFile()));
+        assertEquals(HttpStatus.NOT_FOUND, controller.cancel("missing").getStatusCode());
+    }
+
+    @Test
+    void forgetsFinishedJobsAfterRetention() throws Exception {
+        when(fileService.processUpload(anyString(), any(Path.class), any(), any(UploadProgress.class))).thenReturn(meta("t_1"));
+        // zero retention: finished jobs are pruned by the next submit
+        UploadJobService service = service(1, 4, 0);
+
+        UploadJob first = service.submit(csv("a.csv"), null);
+        awaitFinished(first);
+        Thread.sleep(5);
+        UploadJob second = service.submit(csv("b.csv"), null);
+
+        assertTrue(service.get(first.getId()).isEmpty());
+        assertTrue(service.get(second.getId()).isPresent());
+    }
+
+    private UploadJobService service(int threads, int queueCapacity, long retentionMinutes) {
+        UploadJobService service = new UploadJobService(fileService, threads, queueCapacity, retentionMinutes);
+        services.add(service);
+        return service;
+    }
+
+    private static MockMultipartFile csv(String name) {
+        return new MockMultipartFile("file", name, "text/csv", "a,b\n1,2\n3,4\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UploadedTableMetadata meta(String table) {
+        UploadedTableMetadata meta = new UploadedTableMetadata();
+        meta.setTableName(table);
+        return meta;
+    }
+
+    private static void awaitFinished(UploadJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) Thread.sleep(5);
+        assertTrue(job.isFinished(), "job did not finish: " + job.getStatus());
+        // the spool is deleted in the worker's finally block, just after the terminal state is set
+        long spoolDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(job.getSpoolFile()) && System.nanoTime() < spoolDeadline) Thread.sleep(5);
+    }
+}
@@ -0,0 +1,50 @@
+package com.vedant.querybot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnProfilerTest {
+
+    @Test
+    void profilesColumnsInOnePass() {
+        List<String[]> rows = Arrays.asList(
+                new String[] {"1", "2024-01-02", "x"},
+                new String[] {"", "2024-01-01 09:30", "longer"},
+                new String[] {"-5.5"});
+        List<ColumnProfiler> profiles = ColumnProfiler.forColumns(3);
+        ColumnProfiler.acceptAll(profiles, rows);
+
+        ColumnProfiler num = profiles.get(0);
+        assertEquals(SqlType.DOUBLE, num.type());
+        assertEquals(3, num.count());
+        assertEquals(1, num.nullCount());
+        assertEquals(-5.5, num.min());
+        assertEquals(1.0, num.max());
+
+        ColumnProfiler ts = profiles.get(1);
+        assertEquals(SqlType.TIMESTAMP, ts.type());
+        assertTrue(ts.nullable());
+        assertEquals("2024-01-01 09:30", ts.min());
+
+        ColumnProfiler text = profiles.get(2);
+        assertEquals(SqlType.TEXT, text.type());
+        assertEquals(6, text.maxLength());
+    }
+
+    @Test
+    void estimatesDistinctValues() {
+        ColumnProfiler p = new ColumnProfiler();
+        for (int i = 0; i < 100_000; i++) p.accept(Integer.toString(i % 20_000));
+        long estimate = p.distinctEstimate();
+        assertTrue(Math.abs(estimate - 20_000) < 20_000 * 0.08, "estimate " + estimate);
+
+        ColumnProfiler empty = new ColumnProfiler();
+        empty.accept(null);
+        assertEquals(SqlType.TEXT, empty.type());
+        assertEquals(0, empty.distinctEstimate());
+    }
+}
@@ -0,0 +1,51 @@
+package com.vedant.querybot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonRowReaderTest {
+
+    @Test
+    void streamsArrayAndFlattensNestedObjects() throws IOException {
+        String json = "[{\"id\":1,\"user\":{\"name\":\"ann\",\"geo\":{\"city\":\"Pune\"}},\"tags\":[\"a\",{\"b\":2}]},"
+                + "{\"id\":2,\"user\":null,\"price\":9.50}]";
+        try (JsonRowReader reader = open(json)) {
+            assertEquals(List.of("id", "user.name", "user.geo.city", "tags"), reader.getHeaders());
+            assertArrayEquals(new String[] {"1", "ann", "Pune", "[\"a\",{\"b\":2}]"}, reader.readRow());
+            // keys first seen in a later record are appended to the headers
+            assertArrayEquals(new String[] {"2", null, null, null, null, "9.50"}, reader.readRow());
+            assertEquals(List.of("id", "user.name", "user.geo.city", "tags", "user", "price"), reader.getHeaders());
+            assertNull(reader.readRow());
+        }
+    }
+
+    @Test
+    void readsOneObjectPerLine() throws IOException {
+        String ndjson = "{\"a\":\"x\",\"b\":true}\n\n{\"b\":false,\"a\":\"y\"}\n";
+        try (JsonRowReader reader = open(ndjson)) {
+            assertEquals(List.of("a", "b"), reader.getHeaders());
+            assertArrayEquals(new String[] {"x", "true"}, reader.readRow());
+            assertArrayEquals(new String[] {"y", "false"}, reader.readRow());
+            assertNull(reader.readRow());
+        }
+    }
+
+    @Test
+    void emptyInputHasNoHeaders() throws IOException {
+        try (JsonRowReader reader = open("[]")) {
+            assertTrue(reader.getHeaders().isEmpty());
+            assertNull(reader.readRow());
+        }
+        assertThrows(IOException.class, () -> open("[1, 2]"));
+    }
+
+    private static JsonRowReader open(String s) throws IOException {
+        return new JsonRowReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,133 @@
+package com.vedant.querybot.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvReaderTest {
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void matchesSequentialParserAcrossRangeBoundaries() throws IOException {
+        Path csv = writeSample();
+        List<String[]> expected;
+        try (InputStream in = Files.newInputStream(csv); CsvRowReader seq = new CsvRowReader(in)) {
+            assertEquals(List.of("id", "name", "note"), seq.getHeaders());
+            expected = drain(seq);
+        }
+
+        try (ParallelCsvReader par = new ParallelCsvReader(csv, pool, 4096, 1 << 20, true)) {
+            assertEquals(List.of("id", "name", "note"), par.getHeaders());
+            List<String[]> actual = drain(par);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), actual.get(i), "row " + i);
+            }
+        }
+    }
+
+    @Test
+    void backslashIsLiteralInBothReaders() throws IOException {
+        // Windows paths and a trailing backslash before a closing quote must not act as escapes
+        String content = "id,path,note\n"
+                + "1,C:\\temp\\,plain\n"
+                + "2,\"C:\\dir\\\",\"say \"\"hi\\\"\"\"\n"
+                + "3,a\\nb,\"x\\,y\"\n";
+        Path csv = dir.resolve("backslash.csv");
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+
+        List<String[]> expected = List.of(
+                new String[] {"1", "C:\\temp\\", "plain"},
+                new String[] {"2", "C:\\dir\\", "say \"hi\\\""},
+                new String[] {"3", "a\\nb", "x\\,y"});
+        try (InputStream in = Files.newInputStream(csv); CsvRowReader seq = new CsvRowReader(in);
+             ParallelCsvReader par = new ParallelCsvReader(csv, pool, 4096, 1 << 20, true)) {
+            List<String[]> sequential = drain(seq);
+            List<String[]> parallel = drain(par);
+            assertEquals(expected.size(), sequential.size());
+            assertEquals(expected.size(), parallel.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(expected.get(i), sequential.get(i), "sequential row " + i);
+                assertArrayEquals(expected.get(i), parallel.get(i), "parallel row " + i);
+            }
+        }
+    }
+
+    @Test
+    void unorderedModeReturnsEveryRow() throws IOException {
+        Path csv = writeSample();
+        try (ParallelCsvReader par = new ParallelCsvReader(csv, pool, 4096, 1 << 20, false)) {
+            List<String[]> rows = drain(par);
+            rows.sort(Comparator.comparingInt(r -> Integer.parseInt(r[0])));
+            assertEquals(3000, rows.size());
+            for (int i = 0; i < rows.size(); i++) assertEquals(String.valueOf(i), rows.get(i)[0]);
+        }
+    }
+
+    @Test
+    void inFlightRangesFollowTheByteBudget() throws IOException {
+        assertEquals(3, ParallelCsvReader.windowFor(64L << 20, 16 << 20));
+        assertEquals(1, ParallelCsvReader.windowFor(16L << 20, 16 << 20));
+        assertEquals(1, ParallelCsvReader.windowFor(0, 16 << 20));
+
+        // a budget below one range still parses the whole file, one range at a time
+        Path csv = writeSample();
+        try (ParallelCsvReader par = new ParallelCsvReader(csv, pool, 4096, 0, true)) {
+            List<String[]> rows = drain(par);
+            assertEquals(3000, rows.size());
+            for (int i = 0; i < rows.size(); i++) assertEquals(String.valueOf(i), rows.get(i)[0]);
+        }
+    }
+
+    // Quoted delimiters, embedded newlines, doubled quotes, CRLF endings and short rows
+    private Path writeSample() throws IOException {
+        StringBuilder sb = new StringBuilder("id,name,note\r\n");
+        for (int i = 0; i < 3000; i++) {
+            sb.append(i).append(',');
+            switch (i % 4) {
+                case 0 -> sb.append("\"Smith, J\",\"line one\nline two\"");
+                case 1 -> sb.append("plain,\"she said \"\"hi\"\"\"");
+                case 2 -> sb.append("\"\",ünïcödé");
+                default -> sb.append("short");
+            }
+            sb.append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Path p = dir.resolve("sample.csv");
+        Files.writeString(p, sb.toString(), StandardCharsets.UTF_8);
+        return p;
+    }
+
+    private static List<String[]> drain(RowReader reader) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String[] r;
+        while ((r = reader.readRow()) != null) rows.add(r);
+        return rows;
+    }
+}
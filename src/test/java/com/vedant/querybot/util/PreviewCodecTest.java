@@ -0,0 +1,71 @@
+package com.vedant.querybot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewCodecTest {
+
+    @Test
+    void roundTripsTypedColumnsWithNulls() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", (long) i - 3);
+            row.put("price", i % 7 == 0 ? null : i * 1.25);
+            row.put("total", new BigDecimal("12345678901234567890.0" + i));
+            row.put("active", i % 2 == 0);
+            row.put("category", i % 3 == 0 ? "books" : "music");
+            row.put("day", Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(i)));
+            row.put("empty", null);
+            rows.add(row);
+        }
+
+        String stored = PreviewCodec.encode(rows);
+        assertTrue(stored.startsWith(PreviewCodec.PREFIX));
+        List<Map<String, Object>> decoded = PreviewCodec.decode(stored);
+
+        assertEquals(50, decoded.size());
+        assertEquals(List.of("id", "price", "total", "active", "category", "day", "empty"), new ArrayList<>(decoded.get(0).keySet()));
+        assertEquals(-3L, decoded.get(0).get("id"));
+        assertNull(decoded.get(7).get("price"));
+        assertEquals(8 * 1.25, decoded.get(8).get("price"));
+        assertEquals(new BigDecimal("12345678901234567890.049"), decoded.get(49).get("total"));
+        assertEquals(Boolean.FALSE, decoded.get(1).get("active"));
+        assertEquals("music", decoded.get(1).get("category"));
+        assertEquals("2024-01-02", decoded.get(1).get("day"));
+        assertTrue(decoded.get(1).containsKey("empty"));
+
+        // the header is stored once and columns compress together: far smaller than the JSON preview
+        String json = new ObjectMapper().writeValueAsString(rows);
+        assertTrue(stored.length() < json.length() / 3, stored.length() + " vs " + json.length());
+    }
+
+    @Test
+    void reportsWhetherRowsRoundTripExactly() {
+        Map<String, Object> plain = new LinkedHashMap<>();
+        plain.put("n", 1);
+        plain.put("x", 2.5);
+        plain.put("name", "a");
+        plain.put("none", null);
+        assertTrue(PreviewCodec.encodesExactly(List.of(plain)));
+        // dates are stored as text, and a column mixing numbers with text is stored as text
+        assertFalse(PreviewCodec.encodesExactly(List.of(Map.of("day", Date.valueOf("2024-01-01")))));
+        assertFalse(PreviewCodec.encodesExactly(List.of(Map.of("v", 1L), Map.of("v", "a"))));
+        assertFalse(PreviewCodec.encodesExactly(List.of(Map.of("v", 1.5f))));
+    }
+
+    @Test
+    void readsLegacyJsonPreviews() {
+        List<Map<String, Object>> rows = PreviewCodec.decode("[{\"product\":\"Pen\",\"amount\":10}]");
+        assertEquals(List.of(Map.of("product", "Pen", "amount", 10)), rows);
+        assertTrue(PreviewCodec.decode(null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> PreviewCodec.decode(PreviewCodec.PREFIX + "bm90IGRlZmxhdGU="));
+    }
+}
@@ -0,0 +1,56 @@
+package com.vedant.querybot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowChunkTest {
+
+    @Test
+    void encodesCellsIntoTypedColumns() {
+        List<SqlType> types = List.of(SqlType.BIGINT, SqlType.DOUBLE, SqlType.NUMERIC, SqlType.BOOLEAN,
+                SqlType.DATE, SqlType.TIMESTAMP, SqlType.TIMESTAMPTZ, SqlType.TEXT);
+        RowChunk chunk = new RowChunk(1);
+        chunk.reset(types);
+        chunk.add(new String[] {" 42 ", "2.5", "12345678901234567890.5", "TRUE", "2024-01-31",
+                "2024-01-31 08:00:00.25", "2024-01-31T08:00+05:30", "  hi "});
+        chunk.add(new String[] {"", null}); // short row: remaining cells are NULL
+
+        assertEquals(2, chunk.size());
+        assertEquals(42L, chunk.getLong(0, 0));
+        assertEquals(2.5, chunk.getDouble(0, 1));
+        assertEquals(new BigDecimal("12345678901234567890.5"), chunk.getObject(0, 2));
+        assertTrue(chunk.getBoolean(0, 3));
+        assertEquals(LocalDate.of(2024, 1, 31), chunk.getObject(0, 4));
+        assertEquals(LocalDateTime.of(2024, 1, 31, 8, 0, 0, 250_000_000), chunk.getObject(0, 5));
+        assertEquals(OffsetDateTime.of(2024, 1, 31, 2, 30, 0, 0, ZoneOffset.UTC), chunk.getObject(0, 6));
+        assertEquals("hi", chunk.getObject(0, 7));
+        for (int c = 0; c < types.size(); c++) {
+            assertFalse(chunk.isNull(0, c));
+            assertTrue(chunk.isNull(1, c));
+        }
+    }
+
+    @Test
+    void resetReusesBuffersAcrossTypeChanges() {
+        RowChunk chunk = new RowChunk(2);
+        chunk.reset(List.of(SqlType.BIGINT));
+        for (int i = 0; i < 100; i++) chunk.add(new String[] {Integer.toString(i)});
+        assertEquals(99L, chunk.getLong(99, 0));
+
+        // column widened between chunks, and a column added
+        chunk.reset(List.of(SqlType.TEXT, SqlType.DOUBLE));
+        for (int i = 0; i < 100; i++) chunk.add(new String[] {"v" + i, i % 2 == 0 ? "" : "1.5"});
+        assertEquals(100, chunk.size());
+        assertEquals("v99", chunk.getObject(99, 0));
+        assertTrue(chunk.isNull(98, 1));
+        assertEquals(1.5, chunk.getDouble(99, 1));
+    }
+}
@@ -0,0 +1,48 @@
+package com.vedant.querybot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTypeTest {
+
+    @Test
+    void joinsToTheLeastUpperBound() {
+        assertEquals(SqlType.BIGINT, SqlType.join(SqlType.BIGINT, null));
+        assertEquals(SqlType.DOUBLE, SqlType.join(null, SqlType.DOUBLE));
+        assertEquals(SqlType.DOUBLE, SqlType.join(SqlType.BIGINT, SqlType.DOUBLE));
+        assertEquals(SqlType.NUMERIC, SqlType.join(SqlType.NUMERIC, SqlType.BIGINT));
+        assertEquals(SqlType.TIMESTAMP, SqlType.join(SqlType.DATE, SqlType.TIMESTAMP));
+        assertEquals(SqlType.TEXT, SqlType.join(SqlType.DATE, SqlType.BIGINT));
+        assertEquals(SqlType.TEXT, SqlType.join(SqlType.TIMESTAMP, SqlType.TIMESTAMPTZ));
+        assertEquals(SqlType.TEXT, SqlType.join(SqlType.BOOLEAN, SqlType.BIGINT));
+    }
+
+    @Test
+    void classifiesWithoutRegex() {
+        assertNull(SqlType.classify("  "));
+        assertEquals(SqlType.BIGINT, SqlType.classify("-9223372036854775808"));
+        assertEquals(SqlType.NUMERIC, SqlType.classify("9223372036854775808"));
+        assertEquals(SqlType.DOUBLE, SqlType.classify("+1.5e-3"));
+        assertEquals(SqlType.TEXT, SqlType.classify("1."));
+        assertEquals(SqlType.TEXT, SqlType.classify("12-3"));
+        assertEquals(SqlType.BOOLEAN, SqlType.classify(" TRUE "));
+        assertEquals(SqlType.DATE, SqlType.classify("2024-02-29"));
+        assertEquals(SqlType.TEXT, SqlType.classify("2023-02-29"));
+        assertEquals(SqlType.TIMESTAMP, SqlType.classify("2024-02-01 10:15:30.123"));
+        assertEquals(SqlType.TIMESTAMPTZ, SqlType.classify("2024-02-01T10:15:30Z"));
+        assertEquals(SqlType.TIMESTAMPTZ, SqlType.classify("2024-02-01 10:15:30+05:30"));
+        assertEquals(SqlType.TEXT, SqlType.classify("2024-02-01T25:00"));
+    }
+
+    @Test
+    void everyClassifiedValueParses() {
+        for (String v : List.of("42", "-7", "99999999999999999999", "2.5", "1e10", "3.14159265358979323846",
+                "false", "2024-01-31", "2024-01-31T08:00", "2024-01-31 08:00:01.5", "2024-01-31T08:00:00-08:00",
+                "2024-01-31 08:00+00", "2024-01-31T08:00Z")) {
+            assertDoesNotThrow(() -> SqlType.classify(v).parse(v), v);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.vedant.querybot.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TabularResultTest {
+
+    @Test
+    void readsTypedColumnsAndSerializesLikeRowMaps() throws Exception {
+        // id BIGINT, score DOUBLE, price NUMERIC, name TEXT, and a second "ID" label; 150 rows, every 7th NULL
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnCount()).thenReturn(5);
+        String[] labels = {"id", "score", "price", "name", "ID"};
+        int[] types = {Types.BIGINT, Types.DOUBLE, Types.NUMERIC, Types.VARCHAR, Types.INTEGER};
+        for (int c = 0; c < labels.length; c++) {
+            when(md.getColumnLabel(c + 1)).thenReturn(labels[c]);
+            when(md.getColumnType(c + 1)).thenReturn(types[c]);
+        }
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {0};
+        boolean[] lastNull = {false};
+        when(rs.getLong(anyInt())).thenAnswer(inv -> {
+            lastNull[0] = row[0] % 7 == 0;
+            return lastNull[0] ? 0L : (long) row[0];
+        });
+        when(rs.getDouble(2)).thenAnswer(inv -> {
+            lastNull[0] = row[0] % 7 == 0;
+            return lastNull[0] ? 0.0 : row[0] / 4.0;
+        });
+        when(rs.wasNull()).thenAnswer(inv -> lastNull[0]);
+        when(rs.getObject(3)).thenAnswer(inv -> new BigDecimal(row[0] + ".50"));
+        when(rs.getObject(4)).thenAnswer(inv -> row[0] % 7 == 0 ? null : "item " + row[0]);
+
+        TabularResult.Builder builder = TabularResult.builder(md);
+        TabularResult firstBatch = null;
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (row[0] = 1; row[0] <= 150; row[0]++) {
+            builder.add(rs);
+            int r = row[0];
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", r % 7 == 0 ? null : (long) r);
+            m.put("score", r % 7 == 0 ? null : r / 4.0);
+            m.put("price", new BigDecimal(r + ".50"));
+            m.put("name", r % 7 == 0 ? null : "item " + r);
+            m.put("ID_2", r % 7 == 0 ? null : (long) r);
+            expected.add(m);
+            // taken before the vectors grow past their first capacity
+            if (r == 50) firstBatch = builder.slice(0, 50);
+        }
+        TabularResult result = builder.build();
+
+        assertEquals(150, result.rowCount());
+        assertEquals(List.of("id", "score", "price", "name", "ID_2"), result.columns());
+        assertEquals(3L, result.get(2, 0));
+        assertNull(result.get(6, 0));
+        assertTrue(result.isNull(6, 1));
+        assertEquals(0.75, result.get(2, 1));
+        assertEquals(expected, result.asMaps());
+        assertEquals(expected.subList(0, 50), firstBatch.asMaps());
+
+        // same JSON as the row maps, and slices serialize only their rows
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(result));
+        assertEquals(mapper.writeValueAsString(expected.subList(100, 120)), mapper.writeValueAsString(result.slice(100, 120)));
+
+        // row maps are case-insensitive like ColumnMapRowMapper's
+        assertEquals("item 3", result.asMaps().get(2).get("NAME"));
+        StringBuilder sb = new StringBuilder();
+        result.appendValue(sb, 6, 0);
+        sb.append(' ');
+        result.appendValue(sb, 2, 1);
+        assertEquals("null 0.75", sb.toString());
+    }
+
+    @Test
+    void buildsFromRowMaps() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(new LinkedHashMap<>(Map.of("n", 1)));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("n", null);
+        second.put("flag", true);
+        rows.add(second);
+
+        TabularResult result = TabularResult.of(rows);
+        assertEquals(List.of("n", "flag"), result.columns());
+        // integers are widened to Long; a column missing from a row is NULL there
+        assertEquals(1L, result.get(0, 0));
+        assertNull(result.get(1, 0));
+        assertNull(result.get(0, 1));
+        assertEquals(true, result.get(1, 1));
+        assertTrue(TabularResult.of(List.of()).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.slice(1, 3));
+    }
+}
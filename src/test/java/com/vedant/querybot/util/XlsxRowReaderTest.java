@@ -0,0 +1,83 @@
+package com.vedant.querybot.util;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxRowReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void streamsFirstSheetWithCachedFormulaValues() throws IOException {
+        Path file = writeWorkbook();
+        try (XlsxRowReader reader = new XlsxRowReader(file, null)) {
+            assertEquals(List.of("name", "qty", "price", "total", "sold_at"), reader.getHeaders());
+            assertArrayEquals(new String[] {"apple", "3", "1.5", "4.5", "2024-03-01T10:30"}, reader.readRow());
+            // sparse row: missing cells stay null
+            assertArrayEquals(new String[] {"pear", null, "2", "0", null}, reader.readRow());
+            assertNull(reader.readRow());
+        }
+    }
+
+    @Test
+    void selectsSheetByNameOrPosition() throws IOException {
+        Path file = writeWorkbook();
+        try (XlsxRowReader reader = new XlsxRowReader(file, "Other")) {
+            assertEquals(List.of("flag"), reader.getHeaders());
+            assertArrayEquals(new String[] {"true"}, reader.readRow());
+        }
+        try (XlsxRowReader reader = new XlsxRowReader(file, "2")) {
+            assertEquals(List.of("flag"), reader.getHeaders());
+        }
+        assertThrows(IOException.class, () -> new XlsxRowReader(file, "missing"));
+    }
+
+    private Path writeWorkbook() throws IOException {
+        try (Workbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Sales");
+            Row header = sheet.createRow(0);
+            String[] names = {"name", "qty", "price", "total", "sold_at"};
+            for (int i = 0; i < names.length; i++) header.createCell(i).setCellValue(names[i]);
+
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+
+            Row r1 = sheet.createRow(1);
+            r1.createCell(0).setCellValue("apple");
+            r1.createCell(1).setCellValue(3);
+            r1.createCell(2).setCellValue(1.5);
+            r1.createCell(3).setCellFormula("B2*C2");
+            Cell when = r1.createCell(4);
+            when.setCellValue(LocalDateTime.of(2024, 3, 1, 10, 30));
+            when.setCellStyle(dateStyle);
+
+            Row r2 = sheet.createRow(2);
+            r2.createCell(0).setCellValue("pear");
+            r2.createCell(2).setCellValue(2);
+            r2.createCell(3).setCellFormula("B3*C3");
+
+            Sheet other = wb.createSheet("Other");
+            other.createRow(0).createCell(0).setCellValue("flag");
+            other.createRow(1).createCell(0).setCellValue(true);
+
+            wb.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            Path file = dir.resolve("sales.xlsx");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                wb.write(out);
+            }
+            return file;
+        }
+    }
+}